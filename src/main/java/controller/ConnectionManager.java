@@ -0,0 +1,172 @@
+package controller;
+
+import controller.game.AutoAcceptor;
+import controller.game.ChallengePolicy;
+import controller.game.GameController;
+import controller.game.GameModuleLoader;
+import model.Model;
+import model.ServerConnection;
+import model.SessionJournal;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.io.IOException;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * <p>
+ * Keeps connections to several servers at once, next to the connection shown by the views.
+ * <p>
+ * Every connection has its own {@link ServerConnection} (with its own reader and dispatch thread) and a headless
+ * {@link GameController}, which plays the matches of that server with the AI in sessions of the shared model. All
+ * connections share one {@link GameModuleLoader}, so module classes, pooled modules and AI caches are loaded once per
+ * process instead of once per server. Challenges are accepted by an {@link AutoAcceptor} with the policy of the
+ * <code>framework.autoaccept.*</code> properties. A connection is closed when its heartbeats are no longer answered.
+ */
+public class ConnectionManager {
+    private static final Logger LOGGER = LogManager.getLogger(ConnectionManager.class);
+    private final Model model;
+    private final GameModuleLoader loader;
+    private final List<Connection> connections = new CopyOnWriteArrayList<>();
+
+    /**
+     * Instantiates a new connection manager.
+     *
+     * @param model the model
+     * @param loader the loader of the game modules, shared by all connections
+     */
+    public ConnectionManager(Model model, GameModuleLoader loader) {
+        this.model = model;
+        this.loader = loader;
+    }
+
+    /**
+     * Connects and logs in to a server.
+     *
+     * @param hostname the hostname
+     * @param port the port
+     * @param clientName the name to log in with
+     * @return the connection
+     * @throws IOException Signals that the connection or the login failed.
+     */
+    public Connection connect(String hostname, int port, String clientName) throws IOException {
+        LOGGER.trace("Connecting to server {} on port {} as {}.", hostname, port, clientName);
+        ServerConnection serverConnection = new ServerConnection(hostname, port);
+        GameController gameController = new GameController(model, serverConnection, loader, clientName);
+        serverConnection.addGameListener(gameController);
+        AutoAcceptor autoAcceptor = new AutoAcceptor(model, serverConnection, ChallengePolicy.fromSystemProperties(),
+                gameController);
+        gameController.setAutoAcceptor(autoAcceptor);
+        serverConnection.addGameListener(autoAcceptor);
+        if (!serverConnection.login(clientName)) {
+            serverConnection.close();
+            gameController.setAutoAcceptor(null);
+            throw new IOException("Server " + hostname + ':' + port + " refused login as " + clientName);
+        }
+        Connection connection = new Connection(hostname, port, clientName, serverConnection, gameController);
+        connections.add(connection);
+        gameController.setSessionJournal(SessionJournal.forClient(clientName, serverConnection.getServerAddress()));
+        gameController.setConnectionMonitor(serverConnection.startMonitor(() -> disconnect(connection)));
+        LOGGER.info("Connected to {} as {}.", serverConnection.getServerAddress(), clientName);
+        return connection;
+    }
+
+    /**
+     * Closes a connection.
+     *
+     * @param connection the connection
+     */
+    public void disconnect(Connection connection) {
+        if (connections.remove(connection)) {
+            connection.getServerConnection().close();
+            connection.getGameController().setSessionJournal(null);
+            connection.getGameController().closeSession();
+            connection.getGameController().setAutoAcceptor(null);
+        }
+    }
+
+    /**
+     * Closes all connections.
+     */
+    public void disconnectAll() {
+        for (Connection connection : connections) {
+            disconnect(connection);
+        }
+    }
+
+    /**
+     * Gets the open connections.
+     *
+     * @return the connections
+     */
+    public List<Connection> getConnections() {
+        return Collections.unmodifiableList(connections);
+    }
+
+    /**
+     * A connection to a server.
+     */
+    public static class Connection {
+        private final String hostname;
+        private final int port;
+        private final String clientName;
+        private final ServerConnection serverConnection;
+        private final GameController gameController;
+
+        Connection(String hostname, int port, String clientName, ServerConnection serverConnection,
+                   GameController gameController) {
+            this.hostname = hostname;
+            this.port = port;
+            this.clientName = clientName;
+            this.serverConnection = serverConnection;
+            this.gameController = gameController;
+        }
+
+        /**
+         * Gets the hostname.
+         *
+         * @return the hostname
+         */
+        public String getHostname() {
+            return hostname;
+        }
+
+        /**
+         * Gets the port.
+         *
+         * @return the port
+         */
+        public int getPort() {
+            return port;
+        }
+
+        /**
+         * Gets the client name.
+         *
+         * @return the client name
+         */
+        public String getClientName() {
+            return clientName;
+        }
+
+        /**
+         * Gets the server connection.
+         *
+         * @return the server connection
+         */
+        public ServerConnection getServerConnection() {
+            return serverConnection;
+        }
+
+        /**
+         * Gets the game controller.
+         *
+         * @return the game controller
+         */
+        public GameController getGameController() {
+            return gameController;
+        }
+    }
+}
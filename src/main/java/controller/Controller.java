@@ -1,8 +1,18 @@
 package controller;
 
+import controller.game.AutoAcceptor;
+import controller.game.ChallengePolicy;
+import controller.game.GameCatalog;
 import controller.game.GameController;
+import model.Challenge;
+import model.LobbyCache;
+import model.MatchSession;
 import model.Model;
+import model.ModelEvent;
+import model.ModelListener;
 import model.ServerConnection;
+import model.SessionJournal;
+import nl.abstractteam.gamemodule.ClientAbstractGameModule;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import util.JTextFieldLimit;
@@ -14,16 +24,22 @@ import view.MenuView;
 import javax.swing.*;
 import java.awt.event.ActionEvent;
 import java.awt.event.ActionListener;
+import java.io.File;
 import java.io.IOException;
 import java.io.PrintWriter;
 import java.net.Socket;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 import java.util.Random;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 /**
  * The Class Controller.
  */
-public class Controller implements ActionListener {
+public class Controller implements ActionListener, ModelListener {
     private static final Logger LOGGER = LogManager.getLogger(Controller.class);
     private final Model model;
     private ContainerView containerView;
@@ -31,7 +47,15 @@ public class Controller implements ActionListener {
     private LobbyView lobbyView;
     private LoginBox loginBox;
     private ServerConnection serverConnection;
+    private LobbyCache lobbyCache;
+    private GameCatalog gameCatalog;
     private GameController gameController;
+    private ConnectionManager connectionManager;
+    private final ExecutorService lobbyLoader = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "lobby-loader");
+        thread.setDaemon(true);
+        return thread;
+    });
 
     /**
      * Instantiates a new controller.
@@ -40,16 +64,32 @@ public class Controller implements ActionListener {
      */
     @SuppressWarnings("WeakerAccess")
     public Controller(Model model) {
+        this(model, true);
+    }
+
+    /**
+     * Instantiates a new controller, optionally without views. A controller without views can only connect, log in and
+     * close its connection.
+     *
+     * @param model the model
+     * @param showViews true to create and show the views
+     */
+    Controller(Model model, boolean showViews) {
         this.model = model;
+        gameController = new GameController(this.model, serverConnection);
+        connectionManager = new ConnectionManager(this.model, gameController.getGameModuleLoader());
+        if (!showViews) {
+            return;
+        }
         containerView = new ContainerView();
         menuView = new MenuView();
         lobbyView = new LobbyView();
         loginBox = new LoginBox(containerView);
-        gameController = new GameController(this.model, serverConnection);
 
-        this.model.addActionListener(this);
-        this.model.addActionListener(lobbyView);
-        this.model.addActionListener(containerView);
+        this.model.addModelListener(this, ModelEvent.GAMEMODULE_SET, ModelEvent.GAME_IS_CLOSED);
+        this.model.addViewListener(lobbyView, ModelEvent.NEW_CHALLENGE, ModelEvent.CANCEL_CHALLENGE);
+        this.model.addViewListener(containerView, ModelEvent.TURN_SWITCHED, ModelEvent.GAME_DRAW, ModelEvent.GAME_LOSS,
+                ModelEvent.GAME_WIN, ModelEvent.OPPONENT_SET, ModelEvent.TURN_MESSAGE_CHANGED);
         menuView.addActionListener(this);
         loginBox.addActionListener(this);
         lobbyView.addActionListener(this);
@@ -84,9 +124,7 @@ public class Controller implements ActionListener {
         Object source = e.getSource();
         int sourceID = e.getID();
         String command = e.getActionCommand();
-        if (source instanceof Model) {
-            handleModelEvent(sourceID, command);
-        } else if (source instanceof MenuView) {
+        if (source instanceof MenuView) {
             handleMenuEvent(sourceID);
         } else if (source instanceof LobbyView) {
             handleLobbyEvent(e, sourceID, command);
@@ -136,34 +174,20 @@ public class Controller implements ActionListener {
      */
     private void handleLobbyEvent(ActionEvent e, int sourceID, String command) {
         if (sourceID == LobbyView.LOBBY_REFRESH) {
-            List<String> playerList = serverConnection.getPlayerlist();
+            List<String> playerList = lobbyCache.getPlayerlist(serverConnection);
             if (playerList == null) {
                 LOGGER.trace("playerList was null. Closing connection");
-                containerView.reset();
-                lobbyView.reset();
-                close();
-                containerView.showView(lobbyView);
-                containerView.setServerConnection("");
-                JOptionPane.showMessageDialog(null, "Server disconnected unexpectedly");
-                System.exit(0);
+                serverDisconnected();
                 return;
             }
-            lobbyView.setAvailablePlayers(serverConnection.getPlayerlist(), model.getClientName());
+            SwingUtilities.invokeLater(() -> lobbyView.setAvailablePlayers(playerList, model.getClientName()));
         } else if (sourceID == LobbyView.PLAY_GAME) {
             String gameType = lobbyView.getSelectedGame();
             if (gameType != null) {
-                String[] gameSides = model.getGameSides(gameType);
-                String[] buttons = new String[3];
+                String side = chooseSide(gameType, "Subscribing for " + gameType, "Subscribe");
 
-                buttons[0] = gameSides[0];
-                buttons[1] = gameSides[1];
-                buttons[2] = "Cancel";
-
-                int result = JOptionPane.showOptionDialog(null, "Subscribing for " + gameType + "\n\nChoose a side",
-                        "Subscribe", JOptionPane.YES_NO_OPTION, JOptionPane.INFORMATION_MESSAGE, null, buttons, buttons[1]);
-
-                if (result != -1 && result != 2) {
-                    model.setChosenGameSides(gameType, buttons[result]);
+                if (side != null) {
+                    model.setChosenGameSides(gameType, side);
                     model.setChallengeTurnTime("10");
                     subscribe(gameType);
                 }
@@ -172,48 +196,90 @@ public class Controller implements ActionListener {
             String player = lobbyView.getSelectedPlayer();
             String gameType = lobbyView.getSelectedGame();
             if (player != null && gameType != null) {
-                String[] gameSides = model.getGameSides(gameType);
-                String[] buttons = new String[3];
-
-                buttons[0] = gameSides[0];
-                buttons[1] = gameSides[1];
-                buttons[2] = "Cancel";
+                String side = chooseSide(gameType, "Challenging " + player + " for " + gameType, "Challenge");
 
-                int result = JOptionPane.showOptionDialog(null,
-                        "Challenging " + player + " for " + gameType + "\n\nChoose a side", "Challenge",
-                        JOptionPane.YES_NO_OPTION, JOptionPane.INFORMATION_MESSAGE, null, buttons, buttons[1]);
-
-                if (result != -1 && result != 2) {
-                    model.setChosenGameSides(gameType, buttons[result]);
+                if (side != null) {
+                    model.setChosenGameSides(gameType, side);
                     model.setChallengeTurnTime(model.getTurnTime());
                     challenge(player, gameType, model.getTurnTime());
                 }
             }
         } else if (sourceID == LobbyView.CHALLENGE_ACCEPTED) {
-            String challengeNumber = e.getActionCommand();
-            String player = lobbyView.getPlayerFromChallenge(challengeNumber);
-            String gameType = lobbyView.getGameTypeFromChallenge(challengeNumber);
-            String turnTime = lobbyView.getTurnTimeFromChallenge(challengeNumber);
-            if (player != null && gameType != null) {
-                String[] gameSides = model.getGameSides(gameType);
-                String[] buttons = new String[3];
-
-                buttons[0] = gameSides[0];
-                buttons[1] = gameSides[1];
-                buttons[2] = "Cancel";
-
-                int result = JOptionPane.showOptionDialog(null,
-                        "Accept challenge by " + player + " for " + gameType + "\n\nChoose a side", "Challenge",
-                        JOptionPane.YES_NO_OPTION, JOptionPane.INFORMATION_MESSAGE, null, buttons, buttons[1]);
-
-                if (result != -1 && result != 2) {
-                    lobbyView.deleteChallenge(e.getActionCommand());
-                    model.setChosenGameSides(gameType, buttons[result]);
-                    model.setChallengeTurnTime(turnTime);
+            Challenge challenge = lobbyView.getChallenge(command);
+            if (challenge != null) {
+                String player = challenge.getPlayer();
+                String gameType = challenge.getGameType();
+                String side = chooseSide(gameType, "Accept challenge by " + player + " for " + gameType, "Challenge");
+
+                if (side != null) {
+                    model.removeChallenge(command);
+                    model.setChosenGameSides(gameType, side);
+                    model.setChallengeTurnTime(challenge.getTurnTime());
                     acceptChallenge(command);
                 }
             }
+        } else if (sourceID == LobbyView.CHALLENGE_REJECTED) {
+            model.removeChallenge(command);
+        }
+    }
+
+    /**
+     * Asks the user to choose a side of a game, with the pieces of the game in the catalog of the server.
+     *
+     * @param gameType the game type
+     * @param message the message of the dialog
+     * @param title the title of the dialog
+     * @return the chosen side, or null if the dialog was cancelled or there is no module for the game
+     */
+    private String chooseSide(String gameType, String message, String title) {
+        GameCatalog.Game game = gameCatalog == null ? null : gameCatalog.getGame(gameType);
+        String[] gameSides = game != null ? game.getSides() : model.getGameSides(gameType);
+        if ((game != null && !game.isPlayable()) || gameSides == null || gameSides.length < 2) {
+            JOptionPane.showMessageDialog(null, "There is no game module for " + gameType, title,
+                    JOptionPane.WARNING_MESSAGE);
+            return null;
         }
+        String[] buttons = {gameSides[0], gameSides[1], "Cancel"};
+
+        int result = JOptionPane.showOptionDialog(null, message + "\n\nChoose a side", title,
+                JOptionPane.YES_NO_OPTION, JOptionPane.INFORMATION_MESSAGE, null, buttons, buttons[1]);
+
+        return result != -1 && result != 2 ? buttons[result] : null;
+    }
+
+    /**
+     * Closes the connection, informs the user that the server disconnected unexpectedly and exits.
+     */
+    private void serverDisconnected() {
+        disconnect();
+        JOptionPane.showMessageDialog(null, "Server disconnected unexpectedly");
+        exit();
+    }
+
+    /**
+     * Closes a connection whose heartbeats were no longer answered and informs the user, if it is still the connection
+     * shown by the views. The connections of the connection manager stay open and the application keeps running.
+     *
+     * @param connection the dead connection
+     */
+    private void connectionLost(ServerConnection connection) {
+        if (connection != serverConnection) {
+            return;
+        }
+        disconnect();
+        JOptionPane.showMessageDialog(null, "The connection to the server was lost", "Connection lost",
+                JOptionPane.WARNING_MESSAGE);
+    }
+
+    /**
+     * Closes the connection shown by the views and returns to an empty lobby.
+     */
+    private void disconnect() {
+        containerView.reset();
+        lobbyView.reset();
+        close();
+        containerView.showView(lobbyView);
+        containerView.setServerConnection("");
     }
 
     /**
@@ -222,15 +288,13 @@ public class Controller implements ActionListener {
      * @param sourceID the source id
      */
     private void handleMenuEvent(int sourceID) {
-        if (sourceID == MenuView.SERVER_CONNECTION_SHOW) {
+        if (sourceID == MenuView.EXIT) {
+            exit();
+        } else if (sourceID == MenuView.SERVER_CONNECTION_SHOW) {
             loginBox.resetError();
             loginBox.setVisible(true);
         } else if (sourceID == MenuView.DISCONNECT_FROM_SERVER && serverConnection != null && serverConnection.isConnected()) {
-            containerView.reset();
-            lobbyView.reset();
-            close();
-            containerView.showView(lobbyView);
-            containerView.setServerConnection("");
+            disconnect();
         } else if (sourceID == MenuView.TOGGLE_AI) {
             model.setPlayWithAI(!model.getPlayWithAI());
             menuView.setPlayWithAI(model.getPlayWithAI());
@@ -302,32 +366,50 @@ public class Controller implements ActionListener {
         }).start();
     }
 
-    /**
-     * Handle model event.
-     *
-     * @param sourceID the source id
-     * @param command the command
+    /* (non-Javadoc)
+     * @see model.ModelListener#modelChanged(model.Model, model.ModelEvent, java.lang.String)
      */
-    private void handleModelEvent(int sourceID, String command) {
-        if (sourceID == Model.GAME_CHANGED && command != null && command.equals(Model.GAMEMODULE_SET)) {
-            model.getGameModule().addMoveListener(gameController);
+    @Override
+    public void modelChanged(Model model, ModelEvent event, String value) {
+        if (event == ModelEvent.GAMEMODULE_SET) {
+            ClientAbstractGameModule gameModule = model.getGameModule();
+            gameModule.addMoveListener(gameController);
             lobbyView.stopAutomaticRefresh();
-            containerView.showView(model.getGameModule().getView());
             model.setPlayingGame(true);
-            containerView.setPlaySide(model.getChosenGameSides(model.getPlayingGameType()));
-        } else if (sourceID == Model.GAME_CHANGED && command != null && command.equals(Model.GAME_IS_CLOSED)) {
+            MatchSession session = model.getActiveSession();
+            String playSide = session == null ? null : session.getSide();
+            SwingUtilities.invokeLater(() -> {
+                containerView.showView(gameModule.getView());
+                containerView.setPlaySide(playSide);
+            });
+        } else if (event == ModelEvent.GAME_IS_CLOSED) {
             loadLobby();
-            containerView.showView(lobbyView);
-            containerView.reset();
+            SwingUtilities.invokeLater(() -> {
+                containerView.showView(lobbyView);
+                containerView.reset();
+            });
         }
     }
 
     /**
-     * Close.
+     * Closes the connection shown by the views. The connections of the connection manager stay open.
      */
     void close() {
         LOGGER.trace("Closing connection to server.");
         serverConnection.close();
+        gameController.setSessionJournal(null);
+        gameController.setAutoAcceptor(null);
+    }
+
+    /**
+     * Closes all connections, including the connections of the connection manager, and exits the application.
+     */
+    private void exit() {
+        if (serverConnection != null && serverConnection.isConnected()) {
+            close();
+        }
+        connectionManager.disconnectAll();
+        System.exit(0);
     }
 
     /**
@@ -342,8 +424,22 @@ public class Controller implements ActionListener {
         try {
             model.setServerAddress(hostname).setServerPort(Integer.toString(port));
             serverConnection = new ServerConnection(hostname, port);
+            lobbyCache = LobbyCache.forServer(hostname, port);
+            gameCatalog = GameCatalog.forServer(hostname, port, gameController.getGameModuleLoader(), model);
+            gameCatalog.invalidate();
+            startJournal(hostname, port);
             gameController.setServerConnection(serverConnection);
+            ServerConnection connection = serverConnection;
+            gameController.setConnectionMonitor(serverConnection.startMonitor(() ->
+                    SwingUtilities.invokeLater(() -> connectionLost(connection))));
             serverConnection.addGameListener(gameController);
+            if (Boolean.getBoolean("framework.autoaccept")) {
+                AutoAcceptor autoAcceptor = new AutoAcceptor(model, serverConnection, ChallengePolicy.fromSystemProperties());
+                gameController.setAutoAcceptor(autoAcceptor);
+                serverConnection.addGameListener(autoAcceptor);
+                model.setPlayWithAI(true);
+                menuView.setPlayWithAI(true);
+            }
             return true;
         } catch (IOException e) {
             LOGGER.error("Error while connecting.", e);
@@ -351,6 +447,37 @@ public class Controller implements ActionListener {
         }
     }
 
+    /**
+     * Gets the manager of the connections to other servers, which are played headless next to this connection.
+     *
+     * @return the connection manager
+     */
+    ConnectionManager getConnectionManager() {
+        return connectionManager;
+    }
+
+    /**
+     * Starts recording the protocol when the <code>framework.journal</code> property names a directory.
+     *
+     * @param hostname the hostname
+     * @param port the port
+     */
+    private void startJournal(String hostname, int port) {
+        String directory = System.getProperty("framework.journal");
+        if (directory == null) {
+            return;
+        }
+        File journal = new File(directory, hostname + "-" + port + "-" + System.currentTimeMillis() + ".journal");
+        try {
+            //noinspection ResultOfMethodCallIgnored
+            journal.getParentFile().mkdirs();
+            serverConnection.startJournal(journal);
+            LOGGER.info("Recording protocol journal {}.", journal);
+        } catch (IOException e) {
+            LOGGER.error("Could not start protocol journal {}.", journal, e);
+        }
+    }
+
     /**
      * Login.
      *
@@ -361,6 +488,7 @@ public class Controller implements ActionListener {
         LOGGER.trace("Trying to login as {}.", username);
         if (serverConnection.login(username)) {
             model.setClientName(username);
+            gameController.setSessionJournal(SessionJournal.forClient(username, serverConnection.getServerAddress()));
             return true;
         } else {
             return false;
@@ -401,12 +529,74 @@ public class Controller implements ActionListener {
     }
 
     /**
-     * Sets the lobby with available games and players.
+     * Sets the lobby with available games and players. The lobby is shown at once with the games and players that are
+     * already known, the lists are fetched in the background and applied on the event dispatch thread when they arrive.
      */
     void loadLobby() {
         LOGGER.trace("Loading lobby view.");
-        lobbyView.setAvailableGames(serverConnection.getGamelist());
-        lobbyView.setAvailablePlayers(serverConnection.getPlayerlist(), model.getClientName());
-        lobbyView.automaticRefresh();
+        ServerConnection connection = serverConnection;
+        LobbyCache cache = lobbyCache;
+        GameCatalog catalog = gameCatalog;
+        List<String> knownPlayers = cache.getLastPlayerlist();
+        List<String> knownGames = catalog.getCachedGameTypes();
+        List<String> unplayable = knownGames == null ? null : unplayableGames(catalog, knownGames);
+        SwingUtilities.invokeLater(() -> {
+            if (knownGames != null) {
+                lobbyView.setAvailableGames(knownGames, unplayable);
+            }
+            if (knownPlayers != null) {
+                lobbyView.setAvailablePlayers(knownPlayers, model.getClientName());
+            }
+        });
+        CompletableFuture.supplyAsync(() -> fetchLobby(connection, cache, catalog), lobbyLoader)
+                .thenAccept(lists -> SwingUtilities.invokeLater(() -> {
+                    lobbyView.setAvailableGames(lists.get(0), unplayableGames(catalog, lists.get(0)));
+                    lobbyView.setAvailablePlayers(lists.get(1), model.getClientName());
+                    if (!model.getPlayingGame()) {
+                        lobbyView.automaticRefresh();
+                    }
+                }))
+                .exceptionally(e -> {
+                    LOGGER.error("Error while loading lobby.", e);
+                    return null;
+                });
+    }
+
+    /**
+     * Gets the games of the server which no loaded module can play.
+     *
+     * @param catalog the game catalog of the server
+     * @param gameTypes the game types of the server
+     * @return the game types without a module
+     */
+    private static List<String> unplayableGames(GameCatalog catalog, List<String> gameTypes) {
+        List<String> unplayable = new ArrayList<>();
+        for (String gameType : gameTypes) {
+            GameCatalog.Game game = catalog.getGame(gameType);
+            if (game != null && !game.isPlayable()) {
+                unplayable.add(gameType);
+            }
+        }
+        return unplayable;
+    }
+
+    /**
+     * Fetches the games and players of the lobby, from the caches when they are known. Runs in the background.
+     *
+     * @param connection the server connection
+     * @param cache the player list cache of the server
+     * @param catalog the game catalog of the server
+     * @return the game types and the player list
+     */
+    private static List<List<String>> fetchLobby(ServerConnection connection, LobbyCache cache, GameCatalog catalog) {
+        List<String> playerList = cache.getFreshPlayerlist();
+        if (playerList == null && !catalog.isLoaded()) {
+            List<List<String>> lists = connection.getGameAndPlayerlist();
+            catalog.update(lists.get(0));
+            playerList = cache.update(lists.get(1));
+        } else if (playerList == null) {
+            playerList = cache.getPlayerlist(connection);
+        }
+        return Arrays.asList(catalog.getGameTypes(connection), playerList);
     }
 }
@@ -34,6 +34,13 @@ public class Main {
                 }
             }
         }
+        for (int i = 3; i + 2 < args.length; i += 3) {
+            try {
+                controller.getConnectionManager().connect(args[i], Integer.parseInt(args[i + 1]), args[i + 2]);
+            } catch (IOException | NumberFormatException e) {
+                LOGGER.error("Could not connect to %s on port %s: %s", args[i], args[i + 1], e);
+            }
+        }
     }
 
     /**
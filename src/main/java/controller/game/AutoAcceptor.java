@@ -0,0 +1,201 @@
+package controller.game;
+
+import model.Model;
+import model.ServerConnection;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * <p>
+ * Accepts challenges without user interaction when they match a {@link ChallengePolicy}.
+ * <p>
+ * The acceptance is sent from a thread of the acceptor: {@link ServerConnection#acceptChallenge(String)} waits for the
+ * answer of the server, which is read by the thread that notifies this listener. Every acceptor has its own thread, so a
+ * slow server only delays the challenges of its own connection; it is stopped by {@link #close()}. The side is the side
+ * chosen earlier for the game type, or a random one.
+ * <p>
+ * Accepted challenges count as games until their match starts. If no match starts within the time to live of a challenge
+ * the acceptance is forgotten, and all games are forgotten when the session of the connection is closed, so games which
+ * ended without a result don't keep counting against the limit of the policy.
+ */
+public class AutoAcceptor implements GameListener {
+    private static final Logger LOGGER = LogManager.getLogger(AutoAcceptor.class);
+    private final Model model;
+    private final ChallengePolicy policy;
+    private final ExecutorService executor;
+    /**
+     * Games which are being played
+     */
+    private int activeGames = 0;
+    /**
+     * The times challenges have been accepted, by challenge number, while their match has not started yet
+     */
+    private final Map<String, Long> pendingGames = new LinkedHashMap<>();
+    private final ServerConnection serverConnection;
+    /**
+     * The controller of a headless connection, or null if the challenges are shown in the lobby of the model
+     */
+    private final GameController headlessController;
+
+    /**
+     * Instantiates a new auto acceptor.
+     *
+     * @param model the model
+     * @param serverConnection the server connection
+     * @param policy the policy
+     */
+    public AutoAcceptor(Model model, ServerConnection serverConnection, ChallengePolicy policy) {
+        this(model, serverConnection, policy, null);
+    }
+
+    /**
+     * Instantiates a new auto acceptor.
+     *
+     * @param model the model
+     * @param serverConnection the server connection
+     * @param policy the policy
+     * @param headlessController the controller of a headless connection, which plays the accepted challenges with
+     *                           their turn time, or null if the challenges are shown in the lobby of the model
+     */
+    public AutoAcceptor(Model model, ServerConnection serverConnection, ChallengePolicy policy,
+                        GameController headlessController) {
+        this.model = model;
+        this.serverConnection = serverConnection;
+        this.policy = policy;
+        this.headlessController = headlessController;
+        executor = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "auto-accept " + serverConnection.getServerAddress());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @Override
+    public void challenge(String challenger, String challengeNumber, String gameType, String challengeTurnTime) {
+        if (policy.accepts(challenger, gameType, challengeTurnTime, getGames())) {
+            try {
+                executor.execute(() -> accept(challenger, challengeNumber, gameType, challengeTurnTime));
+            } catch (RejectedExecutionException e) {
+                LOGGER.trace("Not accepting challenge {}: the acceptor is closed.", challengeNumber);
+            }
+        }
+    }
+
+    /**
+     * Accepts a challenge, if there is still room for another game.
+     *
+     * @param challenger the challenger
+     * @param challengeNumber the challenge number
+     * @param gameType the game type
+     * @param challengeTurnTime the challenge turn time
+     */
+    private void accept(String challenger, String challengeNumber, String gameType, String challengeTurnTime) {
+        if (!policy.accepts(challenger, gameType, challengeTurnTime, getGames())) {
+            return;
+        }
+        if (model.getGameSides(gameType) == null) {
+            LOGGER.info("Not accepting challenge {} for {}: no game module loaded.", challengeNumber, gameType);
+            return;
+        }
+        if (headlessController == null && model.removeChallenge(challengeNumber) == null) {
+            return;
+        }
+
+        synchronized (this) {
+            pendingGames.put(challengeNumber, System.currentTimeMillis());
+        }
+        model.getChosenGameSides(gameType);
+        if (headlessController == null) {
+            model.setChallengeTurnTime(challengeTurnTime);
+        } else {
+            headlessController.setChallengeTurnTime(challengeTurnTime);
+        }
+        LOGGER.trace("Auto accepting challenge {} by {} for {}.", challengeNumber, challenger, gameType);
+        if (!serverConnection.acceptChallenge(challengeNumber)) {
+            LOGGER.warn("Server refused to accept challenge {}.", challengeNumber);
+            synchronized (this) {
+                pendingGames.remove(challengeNumber);
+            }
+        }
+    }
+
+    /**
+     * Gets the amount of games which are being played or whose challenge has been accepted, forgetting accepted
+     * challenges which are older than the time to live of a challenge.
+     *
+     * @return the amount of games
+     */
+    private synchronized int getGames() {
+        long expiredBefore = System.currentTimeMillis() - Model.getChallengeTimeToLive();
+        for (Iterator<Map.Entry<String, Long>> iterator = pendingGames.entrySet().iterator(); iterator.hasNext(); ) {
+            Map.Entry<String, Long> pending = iterator.next();
+            if (pending.getValue() < expiredBefore) {
+                LOGGER.info("No match started for accepted challenge {}, it no longer counts as a game.", pending.getKey());
+                iterator.remove();
+            }
+        }
+        return activeGames + pendingGames.size();
+    }
+
+    /**
+     * Forgets the games of the connection, which can't be played anymore once its session is closed.
+     */
+    public synchronized void sessionClosed() {
+        activeGames = 0;
+    }
+
+    /**
+     * Stops accepting challenges and stops the thread of the acceptor.
+     */
+    public void close() {
+        executor.shutdownNow();
+    }
+
+    @Override
+    public synchronized void match(String playerToMove, String gameType, String opponent) {
+        activeGames++;
+        Iterator<Long> oldest = pendingGames.values().iterator();
+        if (oldest.hasNext()) {
+            oldest.next();
+            oldest.remove();
+        }
+    }
+
+    @Override
+    public void yourTurn(String turnMessage) {
+    }
+
+    @Override
+    public void move(String player, String move, String details) {
+    }
+
+    @Override
+    public void challengeCancelled(String challengeNumber) {
+    }
+
+    @Override
+    public void loss(String playerOneScore, String playerTwoScore, String comment) {
+        gameEnded();
+    }
+
+    @Override
+    public void win(String playerOneScore, String playerTwoScore, String comment) {
+        gameEnded();
+    }
+
+    @Override
+    public void draw(String playerOneScore, String playerTwoScore, String comment) {
+        gameEnded();
+    }
+
+    private synchronized void gameEnded() {
+        activeGames = Math.max(0, activeGames - 1);
+    }
+}
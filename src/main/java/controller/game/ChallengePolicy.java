@@ -0,0 +1,124 @@
+package controller.game;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * <p>
+ * The rules which decide whether a challenge is accepted automatically, see {@link AutoAcceptor}.
+ * <p>
+ * A challenge is accepted when its game type is allowed, the challenger is allowed and not denied, the turn time is at
+ * least the minimal turn time and fewer than the maximum amount of games are being played or accepted. Empty sets allow
+ * everything.
+ */
+public class ChallengePolicy {
+    private Set<String> gameTypes = Collections.emptySet();
+    private Set<String> allowedPlayers = Collections.emptySet();
+    private Set<String> deniedPlayers = Collections.emptySet();
+    private int minTurnTime = 0;
+    private int maxConcurrentGames = 1;
+
+    /**
+     * Creates a policy from the system properties <code>framework.autoaccept.games</code>,
+     * <code>framework.autoaccept.allow</code> and <code>framework.autoaccept.deny</code> (comma separated lists),
+     * <code>framework.autoaccept.minturntime</code> (seconds) and <code>framework.autoaccept.maxgames</code>.
+     *
+     * @return the policy
+     */
+    public static ChallengePolicy fromSystemProperties() {
+        return new ChallengePolicy()
+                .setGameTypes(split(System.getProperty("framework.autoaccept.games")))
+                .setAllowedPlayers(split(System.getProperty("framework.autoaccept.allow")))
+                .setDeniedPlayers(split(System.getProperty("framework.autoaccept.deny")))
+                .setMinTurnTime(Integer.getInteger("framework.autoaccept.minturntime", 0))
+                .setMaxConcurrentGames(Integer.getInteger("framework.autoaccept.maxgames", 1));
+    }
+
+    private static Set<String> split(String list) {
+        if (list == null || list.trim().isEmpty()) {
+            return Collections.emptySet();
+        }
+        Set<String> values = new HashSet<>();
+        Arrays.stream(list.split(",")).map(String::trim).filter(value -> !value.isEmpty()).forEach(values::add);
+        return values;
+    }
+
+    /**
+     * Checks whether a challenge should be accepted.
+     *
+     * @param challenger the challenger
+     * @param gameType the game type
+     * @param turnTime the turn time in seconds, as sent by the server
+     * @param games the amount of games being played or accepted
+     * @return true, if the challenge should be accepted
+     */
+    public boolean accepts(String challenger, String gameType, String turnTime, int games) {
+        if (games >= maxConcurrentGames) {
+            return false;
+        }
+        if (!gameTypes.isEmpty() && !gameTypes.contains(gameType)) {
+            return false;
+        }
+        if (deniedPlayers.contains(challenger) || (!allowedPlayers.isEmpty() && !allowedPlayers.contains(challenger))) {
+            return false;
+        }
+        return turnTime != null && turnTime.matches("\\d+") && Integer.parseInt(turnTime) >= minTurnTime;
+    }
+
+    /**
+     * Sets the game types which are accepted.
+     *
+     * @param gameTypes the game types, empty for all
+     * @return the policy
+     */
+    public ChallengePolicy setGameTypes(Set<String> gameTypes) {
+        this.gameTypes = gameTypes;
+        return this;
+    }
+
+    /**
+     * Sets the players whose challenges are accepted.
+     *
+     * @param allowedPlayers the players, empty for all
+     * @return the policy
+     */
+    public ChallengePolicy setAllowedPlayers(Set<String> allowedPlayers) {
+        this.allowedPlayers = allowedPlayers;
+        return this;
+    }
+
+    /**
+     * Sets the players whose challenges are never accepted.
+     *
+     * @param deniedPlayers the players
+     * @return the policy
+     */
+    public ChallengePolicy setDeniedPlayers(Set<String> deniedPlayers) {
+        this.deniedPlayers = deniedPlayers;
+        return this;
+    }
+
+    /**
+     * Sets the minimal turn time.
+     *
+     * @param minTurnTime the minimal turn time in seconds
+     * @return the policy
+     */
+    public ChallengePolicy setMinTurnTime(int minTurnTime) {
+        this.minTurnTime = minTurnTime;
+        return this;
+    }
+
+    /**
+     * Sets the maximum amount of games played at the same time.
+     *
+     * @param maxConcurrentGames the maximum amount of games
+     * @return the policy
+     */
+    public ChallengePolicy setMaxConcurrentGames(int maxConcurrentGames) {
+        this.maxConcurrentGames = maxConcurrentGames;
+        return this;
+    }
+}
@@ -0,0 +1,28 @@
+package controller.game;
+
+/**
+ * <p>
+ * Optional contract for game modules which take moves as int codes instead of strings.
+ * <p>
+ * The module defines its moves once; the index of a move in {@link #getMoves()} is its code (for example the square
+ * index on the board). Moves received from the server are then passed to {@link #doPlayerMove(String, int)} without the
+ * module parsing the move string. Moves which are not defined by the module still take
+ * <code>doPlayerMove(String, String)</code>.
+ */
+public interface EncodedMoveModule {
+    /**
+     * Gets all moves of the game, as sent to and received from the server.
+     *
+     * @return the moves, the index of a move is its code
+     */
+    String[] getMoves();
+
+    /**
+     * Performs a move of a player.
+     *
+     * @param player the player who performed the move
+     * @param move the code of the move
+     * @throws IllegalStateException if the move is not legal
+     */
+    void doPlayerMove(String player, int move);
+}
@@ -0,0 +1,169 @@
+package controller.game;
+
+import model.Model;
+import model.ServerConnection;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * <p>
+ * The games of a server joined with the game modules that can play them, cached per server.
+ * <p>
+ * The game list of a server practically never changes, so it is requested once and kept until the client reconnects or
+ * the catalog is refreshed explicitly with {@link #invalidate()}, instead of being requested on every return to the
+ * lobby. Every game is joined with whether a module of its type is loaded and the pieces the module declares.
+ */
+public class GameCatalog {
+    private static final Logger LOGGER = LogManager.getLogger(GameCatalog.class);
+    private static final ConcurrentHashMap<String, GameCatalog> CATALOGS = new ConcurrentHashMap<>();
+    private final String server;
+    private final GameModuleLoader loader;
+    private final Model model;
+    private volatile List<String> gameTypes;
+    private volatile Map<String, Game> games;
+
+    private GameCatalog(String server, GameModuleLoader loader, Model model) {
+        this.server = server;
+        this.loader = loader;
+        this.model = model;
+    }
+
+    /**
+     * Gets the catalog of a server.
+     *
+     * @param hostname the hostname of the server
+     * @param port the port of the server
+     * @param loader the loader of the game modules
+     * @param model the model, which holds the pieces of the modules
+     * @return the catalog
+     */
+    public static GameCatalog forServer(String hostname, int port, GameModuleLoader loader, Model model) {
+        return CATALOGS.computeIfAbsent(hostname.toLowerCase() + ':' + port, server -> new GameCatalog(server, loader, model));
+    }
+
+    /**
+     * Gets the games of the server, requesting them through a connection if they are not known yet.
+     *
+     * @param serverConnection a connection to the server
+     * @return the game types, in the order of the server
+     */
+    public List<String> getGameTypes(ServerConnection serverConnection) {
+        List<String> current = gameTypes;
+        if (current != null) {
+            return current;
+        }
+        return update(serverConnection.getGamelist());
+    }
+
+    /**
+     * Gets the games of the server if they are known, without requesting them.
+     *
+     * @return the game types, or null if the game list has not been received
+     */
+    public List<String> getCachedGameTypes() {
+        return gameTypes;
+    }
+
+    /**
+     * Checks if the games of the server are known.
+     *
+     * @return true, if the game list has been received
+     */
+    public boolean isLoaded() {
+        return gameTypes != null;
+    }
+
+    /**
+     * Stores a game list received from the server and joins it with the loaded game modules. An empty list means the
+     * request failed and is not stored.
+     *
+     * @param gamelist the received game list
+     * @return the game types
+     */
+    public List<String> update(List<String> gamelist) {
+        List<String> received = Collections.unmodifiableList(gamelist);
+        if (gamelist.isEmpty()) {
+            return received;
+        }
+        Map<String, Game> joined = new HashMap<>();
+        for (String gameType : gamelist) {
+            joined.put(gameType, new Game(gameType, loader.hasGameModule(gameType), model.getGameSides(gameType)));
+        }
+        games = Collections.unmodifiableMap(joined);
+        gameTypes = received;
+        LOGGER.trace("Game catalog of {}: {}", server, joined.values());
+        return received;
+    }
+
+    /**
+     * Gets a game of the server.
+     *
+     * @param gameType the game type
+     * @return the game, or null if the server doesn't offer it or the game list is not known yet
+     */
+    public Game getGame(String gameType) {
+        Map<String, Game> current = games;
+        return current == null ? null : current.get(gameType);
+    }
+
+    /**
+     * Forgets the game list, so it is requested again.
+     */
+    public void invalidate() {
+        gameTypes = null;
+        games = null;
+    }
+
+    /**
+     * A game offered by the server.
+     */
+    public static class Game {
+        private final String gameType;
+        private final boolean playable;
+        private final String[] sides;
+
+        Game(String gameType, boolean playable, String[] sides) {
+            this.gameType = gameType;
+            this.playable = playable;
+            this.sides = sides;
+        }
+
+        /**
+         * Gets the game type.
+         *
+         * @return the game type
+         */
+        public String getGameType() {
+            return gameType;
+        }
+
+        /**
+         * Checks if a game module of this type is loaded.
+         *
+         * @return true, if the game can be played
+         */
+        public boolean isPlayable() {
+            return playable;
+        }
+
+        /**
+         * Gets the pieces of the game module.
+         *
+         * @return the pieces, or null if the module declares none
+         */
+        public String[] getSides() {
+            return sides == null ? null : sides.clone();
+        }
+
+        @Override
+        public String toString() {
+            return gameType + (playable ? "" : " (no module)");
+        }
+    }
+}
@@ -1,7 +1,12 @@
 package controller.game;
 
+import model.ConnectionMonitor;
+import model.MatchSession;
 import model.Model;
+import model.ModelEvent;
+import model.MoveCodec;
 import model.ServerConnection;
+import model.SessionJournal;
 import nl.abstractteam.gamemodule.ClientAbstractGameModule;
 import nl.abstractteam.gamemodule.MoveListener;
 import nl.hanze.t23i.gamemodule.extern.AbstractGameModule;
@@ -10,86 +15,216 @@ import org.apache.logging.log4j.Logger;
 
 import java.io.File;
 
+/**
+ * Plays the matches of one server connection. Every match gets its own {@link MatchSession}, so the game events of this
+ * connection are routed to the session of this connection, while other connections play their own sessions.
+ * <p>
+ * A headless controller plays with its own client name, in sessions which are not shown by the views, always with the AI.
+ * Its challenges are not shown in the lobby either; they are handled by an {@link AutoAcceptor}.
+ * <p>
+ * With a {@link SessionJournal} every match is snapshotted while it is played. When the client is restarted after a crash
+ * the module of the unfinished match is rebuilt from the snapshot, see {@link #setSessionJournal(SessionJournal)}.
+ */
 public class GameController implements GameListener, MoveListener {
     private static final String MODULE_PATH = "modules";
     private static final Logger LOGGER = LogManager.getLogger(GameController.class);
     private ServerConnection serverConnection;
     private Model model;
     private GameModuleLoader loader;
+    private TurnTimeTracker turnTimeTracker = new TurnTimeTracker();
+    private volatile MatchSession session;
+    private volatile MoveCodec codec;
+    private volatile ConnectionMonitor connectionMonitor;
+    private volatile SessionJournal sessionJournal;
+    private volatile AutoAcceptor autoAcceptor;
+    private volatile int challengeTurnTime = Model.UNKNOWN_TURN_TIME;
+
+    private final String headlessClientName;
 
     public GameController(Model model, ServerConnection serverConnection) {
+        this(model, serverConnection, new GameModuleLoader(new File(MODULE_PATH), model), null);
+    }
+
+    /**
+     * Instantiates a new game controller which shares the loaded game modules with other controllers.
+     *
+     * @param model the model
+     * @param serverConnection the server connection
+     * @param loader the loader of the game modules
+     * @param headlessClientName the client name of a headless controller, or null for the controller shown by the views
+     */
+    public GameController(Model model, ServerConnection serverConnection, GameModuleLoader loader, String headlessClientName) {
         this.model = model;
-        loader = new GameModuleLoader(new File(MODULE_PATH), model);
+        this.loader = loader;
         this.serverConnection = serverConnection;
+        this.headlessClientName = headlessClientName;
     }
 
     @Override
     public void match(String playerToMove, String gameType, String opponent) {
-        if (playerToMove.equals(model.getClientName())) {
-            model.setOpponent(opponent);
-        } else {
-            model.setOpponent(playerToMove);
+        int turnTime = isHeadless() ? challengeTurnTime : model.getChallengeTurnTime();
+        String side = model.getGameSides(gameType) == null ? null : model.getChosenGameSides(gameType);
+        MatchSession matchSession = startSession(playerToMove, gameType, opponent, turnTime, side);
+        SessionJournal journal = sessionJournal;
+        if (journal != null && matchSession.getGameModule() != null) {
+            journal.startMatch(gameType, playerToMove, opponent, side, turnTime);
         }
+    }
+
+    /**
+     * Sets the turn time of the challenge accepted by a headless controller, which is used for its next match. The
+     * controller shown by the views uses the challenge turn time of the model instead.
+     *
+     * @param challengeTurnTime the turn time in seconds, as sent by the server
+     */
+    public void setChallengeTurnTime(String challengeTurnTime) {
+        this.challengeTurnTime = Model.parseTurnTime(challengeTurnTime);
+    }
+
+    /**
+     * Opens the session of a match and starts its game module.
+     *
+     * @param playerToMove the player who begins
+     * @param gameType the game type
+     * @param opponent the opponent as given by the server
+     * @param turnTime the turn time in milliseconds
+     * @param side the side the client plays
+     * @return the session, without a game module if none could be started
+     */
+    private MatchSession startSession(String playerToMove, String gameType, String opponent, int turnTime, String side) {
+        String clientName = getClientName();
+        String opponentName = playerToMove.equals(clientName) ? opponent : playerToMove;
+        closeSession();
+        String sessionId = clientName + " vs " + opponentName;
+        if (isHeadless()) {
+            sessionId = serverConnection.getServerAddress() + ' ' + sessionId;
+        }
+        MatchSession matchSession = model.openSession(sessionId, clientName, gameType, !isHeadless());
+        session = matchSession;
+        matchSession.setOpponent(opponentName);
+        matchSession.setTurn(playerToMove);
+        matchSession.setTurnTime(turnTime);
+        matchSession.setSide(side);
 
-        model.setTurn(playerToMove);
         @SuppressWarnings("UnnecessaryLocalVariable") String playerOne = playerToMove;
-        String playerTwo = playerOne.equals(opponent) ? model.getClientName() : opponent;
+        String playerTwo = playerOne.equals(opponent) ? clientName : opponent;
 
         AbstractGameModule module = loader.loadGameModule(gameType, playerOne, playerTwo);
+        codec = module instanceof EncodedMoveModule ? MoveCodec.forGameType(gameType, ((EncodedMoveModule) module).getMoves())
+                : MoveCodec.forGameType(gameType);
 
         LOGGER.trace("Starting {} match. Player one: {}. Player two: {}", gameType, playerOne, playerTwo);
         if (module instanceof ClientAbstractGameModule) {
             ClientAbstractGameModule clientAbstractGameModule = (ClientAbstractGameModule) module;
             clientAbstractGameModule.setClientBegins(!playerOne.equals(opponent));
-            clientAbstractGameModule.setClientPlayPiece(model.getChosenGameSides(gameType));
+            clientAbstractGameModule.setClientPlayPiece(side);
             clientAbstractGameModule.start();
-            model.setGameModule(clientAbstractGameModule, gameType);
+            turnTimeTracker.startMatch(gameType, turnTime);
+            matchSession.setGameModule(clientAbstractGameModule);
         } else {
-            LOGGER.fatal("{} was not an instance of ClientAbstractGameModule", module.getClass().getName());
+            LOGGER.fatal("No ClientAbstractGameModule for {}: {}", gameType, module);
         }
+        return matchSession;
     }
 
     @Override
     public void yourTurn(String turnMessage) {
-        model.setTurnMessage(turnMessage);
-        if (model.getPlayWithAI()) {
-            movePerformed(model.getGameModule().getAIMove());
+        MatchSession matchSession = session;
+        if (matchSession == null) {
+            return;
+        }
+        turnTimeTracker.turnStarted();
+        setTurnPending(true);
+        matchSession.setTurnMessage(turnMessage);
+        SessionJournal journal = sessionJournal;
+        if (journal != null) {
+            journal.turn(turnMessage);
+        }
+        ClientAbstractGameModule gameModule = matchSession.getGameModule();
+        if ((isHeadless() || model.getPlayWithAI()) && gameModule != null) {
+            ConnectionMonitor monitor = connectionMonitor;
+            if (monitor != null) {
+                turnTimeTracker.setRoundTripTimeout(monitor.getRoundTripTimeout());
+            }
+            long budget = turnTimeTracker.getAIBudget();
+            if (gameModule instanceof TimeBudgetAware && budget >= 0) {
+                ((TimeBudgetAware) gameModule).setTimeBudget(budget);
+            }
+            turnTimeTracker.aiStarted();
+            String move = gameModule.getAIMove();
+            turnTimeTracker.aiFinished();
+            movePerformed(move);
         }
     }
 
     @Override
     public void move(String player, String move, String details) {
+        MatchSession matchSession = session;
+        if (matchSession == null || matchSession.getGameModule() == null) {
+            return;
+        }
+        SessionJournal journal = sessionJournal;
+        if (applyMove(matchSession, player, move) && journal != null) {
+            journal.move(player, move);
+        }
+    }
+
+    /**
+     * Applies a move to the game module of a session.
+     *
+     * @param matchSession the session
+     * @param player the player
+     * @param move the move
+     * @return true, if the module accepted the move
+     */
+    private boolean applyMove(MatchSession matchSession, String player, String move) {
+        ClientAbstractGameModule gameModule = matchSession.getGameModule();
+        MoveCodec moveCodec = codec;
+        int code = moveCodec.encode(move);
         try {
-            model.getGameModule().doPlayerMove(player, move);
-            model.setTurn(model.getGameModule().getPlayerToMove());
+            if (moveCodec.isDefined(code) && gameModule instanceof EncodedMoveModule) {
+                ((EncodedMoveModule) gameModule).doPlayerMove(player, code);
+            } else {
+                gameModule.doPlayerMove(player, code == MoveCodec.NO_CODE ? move : moveCodec.decode(code));
+            }
+            matchSession.setTurn(gameModule.getPlayerToMove());
+            return true;
         } catch (IllegalStateException e) {
             LOGGER.error("IllegalStateException when setting move.", e);
+            if (serverConnection != null) {
+                serverConnection.dumpTrace("Module refused move " + move + " of " + player);
+            }
+            return false;
         }
     }
 
     @Override
     public void challenge(String challenger, String challengeNumber, String gameType,String challengeTurnTime) {
-        model.setNewChallenge(gameType, challenger, challengeNumber, challengeTurnTime);
+        if (!isHeadless()) {
+            model.setNewChallenge(gameType, challenger, challengeNumber, challengeTurnTime);
+        }
     }
 
     @Override
     public void challengeCancelled(String challengeNumber) {
-        model.cancelChallenge(challengeNumber);
+        if (!isHeadless()) {
+            model.cancelChallenge(challengeNumber);
+        }
     }
 
     @Override
     public void loss(String playerOneScore, String playerTwoScore, String comment) {
-        this.model.setGameResult(Model.GAME_LOSS);
+        gameEnded(ModelEvent.GAME_LOSS);
     }
 
     @Override
     public void win(String playerOneScore, String playerTwoScore, String comment) {
-        this.model.setGameResult(Model.GAME_WIN);
+        gameEnded(ModelEvent.GAME_WIN);
     }
 
     @Override
     public void draw(String playerOneScore, String playerTwoScore, String comment) {
-        this.model.setGameResult(Model.GAME_DRAW);
+        gameEnded(ModelEvent.GAME_DRAW);
     }
 
     @Override
@@ -99,11 +234,162 @@ public class GameController implements GameListener, MoveListener {
             return;
         }
 
-        if (model.getTurn())
-            new Thread(() -> serverConnection.move(s)).start();
+        MatchSession matchSession = session;
+        MoveCodec moveCodec = codec;
+        if (matchSession != null && matchSession.isMyTurn()) {
+            int code = moveCodec.encode(s);
+            new Thread(() -> {
+                turnTimeTracker.moveWritten();
+                turnTimeTracker.moveAcknowledged(code == MoveCodec.NO_CODE ? serverConnection.move(s)
+                        : serverConnection.move(moveCodec, code));
+                setTurnPending(false);
+            }).start();
+        }
     }
 
     public void setServerConnection(ServerConnection serverConnection) {
         this.serverConnection = serverConnection;
     }
+
+    public void setConnectionMonitor(ConnectionMonitor connectionMonitor) {
+        this.connectionMonitor = connectionMonitor;
+    }
+
+    /**
+     * Tells the monitor of the connection whether it is the turn of the client, so it sends no heartbeats meanwhile.
+     *
+     * @param turnPending true, if the client has to move
+     */
+    private void setTurnPending(boolean turnPending) {
+        ConnectionMonitor monitor = connectionMonitor;
+        if (monitor != null) {
+            monitor.setTurnPending(turnPending);
+        }
+    }
+
+    /**
+     * Sets the journal which snapshots the matches of this controller, closing the previous one. Invoked after logging in.
+     * <p>
+     * If the journal holds an unfinished match which can still be resumed, the game module is rebuilt by replaying the
+     * moves of the snapshot, so the next events of the server continue that match. If it was the turn of the client, the
+     * turn is taken again right away. The match is resumed on the dispatch thread of the connection, like the events of
+     * the server, and before the events which are waiting there.
+     *
+     * @param sessionJournal the journal, or null to stop snapshotting
+     */
+    public void setSessionJournal(SessionJournal sessionJournal) {
+        SessionJournal previous = this.sessionJournal;
+        if (previous != null) {
+            previous.close();
+        }
+        this.sessionJournal = sessionJournal;
+        if (sessionJournal != null) {
+            serverConnection.runOnDispatcher(() -> resume(sessionJournal));
+        }
+    }
+
+    /**
+     * Resumes the unfinished match of a journal, if it can still be resumed. Runs on the dispatch thread.
+     *
+     * @param sessionJournal the journal
+     */
+    private void resume(SessionJournal sessionJournal) {
+        if (this.sessionJournal != sessionJournal) {
+            return;
+        }
+        SessionJournal.Snapshot snapshot = sessionJournal.getResumableMatch();
+        if (snapshot == null) {
+            return;
+        }
+        LOGGER.info("Resuming {} match against {} after {} moves.", snapshot.getGameType(), snapshot.getOpponent(),
+                snapshot.getMoves().size());
+        MatchSession matchSession = startSession(snapshot.getPlayerToMove(), snapshot.getGameType(),
+                snapshot.getOpponent(), snapshot.getTurnTime(), snapshot.getSide());
+        if (matchSession.getGameModule() == null) {
+            sessionJournal.endMatch();
+            return;
+        }
+        for (String[] move : snapshot.getMoves()) {
+            if (!applyMove(matchSession, move[0], move[1])) {
+                LOGGER.error("Could not replay move {} of {}, the match is not resumed.", move[1], move[0]);
+                closeSession();
+                sessionJournal.endMatch();
+                return;
+            }
+        }
+        sessionJournal.reopen();
+        if (snapshot.getTurnMessage() != null) {
+            yourTurn(snapshot.getTurnMessage());
+        }
+    }
+
+    /**
+     * Sets the acceptor of the challenges of this controller, which is told when the session is closed. Closes the
+     * previous acceptor.
+     *
+     * @param autoAcceptor the acceptor, or null if challenges are not accepted automatically
+     */
+    public void setAutoAcceptor(AutoAcceptor autoAcceptor) {
+        AutoAcceptor previous = this.autoAcceptor;
+        if (previous != null) {
+            previous.close();
+        }
+        this.autoAcceptor = autoAcceptor;
+    }
+
+    public TurnTimeTracker getTurnTimeTracker() {
+        return turnTimeTracker;
+    }
+
+    public GameModuleLoader getGameModuleLoader() {
+        return loader;
+    }
+
+    public MatchSession getSession() {
+        return session;
+    }
+
+    /**
+     * Closes the session of the last match and returns its game module to the loader. The games counted by the
+     * acceptor are forgotten.
+     */
+    public void closeSession() {
+        MatchSession matchSession = session;
+        if (matchSession != null) {
+            session = null;
+            setTurnPending(false);
+            model.closeSession(matchSession);
+            loader.releaseGameModule(matchSession.getGameType(), matchSession.getGameModule());
+            AutoAcceptor acceptor = autoAcceptor;
+            if (acceptor != null) {
+                acceptor.sessionClosed();
+            }
+        }
+    }
+
+    /**
+     * Checks if this controller plays without being shown by the views.
+     *
+     * @return true, if headless
+     */
+    public boolean isHeadless() {
+        return headlessClientName != null;
+    }
+
+    private String getClientName() {
+        return isHeadless() ? headlessClientName : model.getClientName();
+    }
+
+    private void gameEnded(ModelEvent gameResult) {
+        turnTimeTracker.endMatch();
+        setTurnPending(false);
+        SessionJournal journal = sessionJournal;
+        if (journal != null) {
+            journal.endMatch();
+        }
+        MatchSession matchSession = session;
+        if (matchSession != null) {
+            matchSession.setGameResult(gameResult);
+        }
+    }
 }
@@ -1,6 +1,7 @@
 package controller.game;
 
 import model.Model;
+import nl.abstractteam.gamemodule.ClientAbstractGameModule;
 import nl.hanze.t23i.gamemodule.extern.AbstractGameModule;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
@@ -15,18 +16,42 @@ import java.net.URLClassLoader;
 import java.util.ArrayList;
 import java.util.Enumeration;
 import java.util.HashMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedDeque;
 import java.util.jar.JarEntry;
 import java.util.jar.JarFile;
 
 public class GameModuleLoader {
     private static final Logger LOGGER = LogManager.getLogger(GameModuleLoader.class);
+    private static final int POOL_SIZE = Integer.getInteger("framework.modulepool.size", 2);
+    private static final int WARMUP_PLIES = Integer.getInteger("framework.warmup.plies", 0);
+    private static final String WARMUP_PLAYER_ONE = "warmup-one";
+    private static final String WARMUP_PLAYER_TWO = "warmup-two";
     private HashMap<String, Class<? extends AbstractGameModule>> gameModuleMap;
+    /**
+     * Finished instances of resettable game modules, per game type
+     */
+    private final ConcurrentHashMap<String, ConcurrentLinkedDeque<AbstractGameModule>> modulePool = new ConcurrentHashMap<>();
+    /**
+     * Plies played during the warm-up, per game type
+     */
+    private final ConcurrentHashMap<String, Integer> warmUpPlies = new ConcurrentHashMap<>();
+    /**
+     * Duration of the finished warm-ups in milliseconds, per game type
+     */
+    private final ConcurrentHashMap<String, Long> warmUpMillis = new ConcurrentHashMap<>();
     private Model model;
 
     public GameModuleLoader(File modulePath, Model model) {
         this.model = model;
         gameModuleMap = new HashMap<>();
         loadJarFiles(modulePath);
+        if (WARMUP_PLIES > 0 && !gameModuleMap.isEmpty()) {
+            Thread warmUp = new Thread(this::warmUp, "module-warmup");
+            warmUp.setDaemon(true);
+            warmUp.setPriority(Thread.MIN_PRIORITY);
+            warmUp.start();
+        }
     }
 
     @SuppressWarnings("ConstantConditions")
@@ -47,9 +72,26 @@ public class GameModuleLoader {
         return jarList;
     }
 
+    /**
+     * Checks if a game module of a game type is loaded.
+     *
+     * @param gameTypeName the game type
+     * @return true, if the game type can be played
+     */
+    public boolean hasGameModule(String gameTypeName) {
+        return gameModuleMap.containsKey(gameTypeName);
+    }
+
     public AbstractGameModule loadGameModule(String gameTypeName, String playerOne, String playerTwo) {
-        AbstractGameModule gameModule = null;
+        AbstractGameModule gameModule = takeFromPool(gameTypeName, playerOne, playerTwo);
+        if (gameModule != null) {
+            return gameModule;
+        }
+        return createGameModule(gameTypeName, playerOne, playerTwo);
+    }
 
+    private AbstractGameModule createGameModule(String gameTypeName, String playerOne, String playerTwo) {
+        AbstractGameModule gameModule = null;
         Class<? extends AbstractGameModule> gameModuleClass = gameModuleMap.get(gameTypeName);
 
         if (gameModuleClass == null) {
@@ -66,6 +108,130 @@ public class GameModuleLoader {
         return gameModule;
     }
 
+    /**
+     * Gets the amount of plies the AI of a game type has played during the warm-up.
+     *
+     * @param gameTypeName the game type
+     * @return the plies played so far
+     */
+    public int getWarmUpPlies(String gameTypeName) {
+        return warmUpPlies.getOrDefault(gameTypeName, 0);
+    }
+
+    /**
+     * Gets the duration of the warm-up of a game type.
+     *
+     * @param gameTypeName the game type
+     * @return the duration in milliseconds, or -1 if the warm-up has not finished
+     */
+    public long getWarmUpMillis(String gameTypeName) {
+        return warmUpMillis.getOrDefault(gameTypeName, -1L);
+    }
+
+    /**
+     * Warms up the AI of every loaded game type by letting it play <code>framework.warmup.plies</code> plies against
+     * itself, so the JIT has compiled its search before the first real match.
+     */
+    private void warmUp() {
+        for (String gameType : gameModuleMap.keySet()) {
+            long start = System.nanoTime();
+            int plies = warmUp(gameType);
+            long millis = (System.nanoTime() - start) / 1000000;
+            warmUpMillis.put(gameType, millis);
+            LOGGER.info("Warmed up {} with {} plies in {} ms.", gameType, plies, millis);
+        }
+    }
+
+    /**
+     * Plays self-play matches of a game type until the warm-up plies are played or the module stops making progress.
+     * Warmed up modules are offered to the pool.
+     *
+     * @param gameType the game type
+     * @return the amount of plies played
+     */
+    private int warmUp(String gameType) {
+        int plies = 0;
+        String[] pieces = model.getGameSides(gameType);
+        try {
+            while (plies < WARMUP_PLIES) {
+                AbstractGameModule module = createGameModule(gameType, WARMUP_PLAYER_ONE, WARMUP_PLAYER_TWO);
+                if (!(module instanceof ClientAbstractGameModule)) {
+                    break;
+                }
+                ClientAbstractGameModule clientModule = (ClientAbstractGameModule) module;
+                clientModule.setClientBegins(true);
+                if (pieces != null && pieces.length > 0) {
+                    clientModule.setClientPlayPiece(pieces[0]);
+                }
+                clientModule.start();
+
+                int matchPlies = 0;
+                while (plies < WARMUP_PLIES && clientModule.getMatchStatus() == AbstractGameModule.MATCH_STARTED) {
+                    String move = clientModule.getAIMove();
+                    if (move == null) {
+                        break;
+                    }
+                    clientModule.doPlayerMove(clientModule.getPlayerToMove(), move);
+                    matchPlies++;
+                    plies++;
+                    if (plies % Math.max(1, WARMUP_PLIES / 10) == 0) {
+                        warmUpPlies.put(gameType, plies);
+                        LOGGER.trace("Warm-up of {}: {}/{} plies.", gameType, plies, WARMUP_PLIES);
+                    }
+                }
+                releaseGameModule(gameType, module);
+                if (matchPlies == 0) {
+                    break;
+                }
+            }
+        } catch (RuntimeException e) {
+            LOGGER.info("Warm-up of {} stopped after {} plies: {}", gameType, plies, e.toString());
+        }
+        warmUpPlies.put(gameType, plies);
+        return plies;
+    }
+
+    /**
+     * Returns a module of a finished match, so it can be reset for a later match. Modules which don't implement
+     * {@link ResettableGameModule}, and modules which don't fit in the pool, are left to the garbage collector.
+     *
+     * @param gameTypeName the game type of the module
+     * @param gameModule the module
+     */
+    public void releaseGameModule(String gameTypeName, AbstractGameModule gameModule) {
+        if (!(gameModule instanceof ResettableGameModule) || gameTypeName == null) {
+            return;
+        }
+        ConcurrentLinkedDeque<AbstractGameModule> pool = modulePool.computeIfAbsent(gameTypeName, type -> new ConcurrentLinkedDeque<>());
+        if (pool.size() < POOL_SIZE) {
+            pool.push(gameModule);
+        }
+    }
+
+    /**
+     * Takes a module from the pool and resets it.
+     *
+     * @param gameTypeName the game type
+     * @param playerOne the player who starts the match
+     * @param playerTwo the other player
+     * @return the module, or null if the pool is empty or the reset failed
+     */
+    private AbstractGameModule takeFromPool(String gameTypeName, String playerOne, String playerTwo) {
+        ConcurrentLinkedDeque<AbstractGameModule> pool = modulePool.get(gameTypeName);
+        AbstractGameModule gameModule = pool == null ? null : pool.poll();
+        if (gameModule == null) {
+            return null;
+        }
+        try {
+            ((ResettableGameModule) gameModule).reset(playerOne, playerTwo);
+            LOGGER.trace("Reusing pooled {} module.", gameTypeName);
+            return gameModule;
+        } catch (RuntimeException e) {
+            LOGGER.error("Error resetting game module '{}'", gameTypeName, e);
+            return null;
+        }
+    }
+
     private void loadJarFiles(File modulePath) {
         ArrayList<File> jarFiles = getJarFiles(modulePath);
         LOGGER.trace("Loading {} files. {}", jarFiles.size(), jarFiles);
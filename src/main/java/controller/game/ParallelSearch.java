@@ -0,0 +1,151 @@
+package controller.game;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.function.BooleanSupplier;
+import java.util.function.ToIntFunction;
+
+/**
+ * <p>
+ * Evaluates the candidate moves of a position in parallel and returns the best one, so modules can use every core in
+ * <code>getAIMove()</code> without writing concurrency code.
+ * <p>
+ * The candidates are split recursively over a shared {@link ForkJoinPool} (<code>framework.search.threads</code> threads,
+ * the amount of processors by default), which balances uneven subtrees by work stealing. When the timeout expires the
+ * search is cancelled and the best move scored so far is returned. Scorers which search deeply should poll the cancelled
+ * flag they are given and return early.
+ */
+public final class ParallelSearch {
+    private static final Logger LOGGER = LogManager.getLogger(ParallelSearch.class);
+    private static final ForkJoinPool POOL = new ForkJoinPool(Integer.getInteger("framework.search.threads",
+            Runtime.getRuntime().availableProcessors()));
+
+    private ParallelSearch() {
+    }
+
+    /**
+     * Finds the move with the highest score.
+     *
+     * @param candidates the candidate moves
+     * @param scorer the scoring function, higher is better
+     * @param timeoutMillis the time the search may take
+     * @param <M> the type of the moves
+     * @return the best move scored before the timeout, the first candidate if none was scored in time, or null if there are
+     * no candidates
+     */
+    public static <M> M findBestMove(List<M> candidates, ToIntFunction<M> scorer, long timeoutMillis) {
+        return findBestMove(candidates, (move, cancelled) -> scorer.applyAsInt(move), timeoutMillis);
+    }
+
+    /**
+     * Finds the move with the highest score, with a scorer which can stop when the search is cancelled.
+     *
+     * @param candidates the candidate moves
+     * @param scorer the scoring function, higher is better
+     * @param timeoutMillis the time the search may take
+     * @param <M> the type of the moves
+     * @return the best move scored before the timeout, the first candidate if none was scored in time, or null if there are
+     * no candidates
+     */
+    public static <M> M findBestMove(List<M> candidates, MoveScorer<M> scorer, long timeoutMillis) {
+        if (candidates.isEmpty()) {
+            return null;
+        }
+        if (candidates.size() == 1) {
+            return candidates.get(0);
+        }
+
+        AtomicBoolean cancelled = new AtomicBoolean();
+        LongAccumulator best = new LongAccumulator(Math::max, Long.MIN_VALUE);
+        ForkJoinTask<Void> search = POOL.submit(new RootSplit<>(candidates, scorer, cancelled, best, 0, candidates.size()));
+        try {
+            search.get(timeoutMillis, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            LOGGER.trace("Search of {} moves cancelled after {} ms.", candidates.size(), timeoutMillis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException e) {
+            LOGGER.error("Error when scoring moves", e.getCause());
+        }
+        cancelled.set(true);
+
+        long result = best.get();
+        if (result == Long.MIN_VALUE) {
+            return candidates.get(0);
+        }
+        return candidates.get(Integer.MAX_VALUE - (int) (result & 0xFFFFFFFFL));
+    }
+
+    /**
+     * Packs a score and a candidate index in a long, ordered by score and then by lowest index.
+     */
+    private static long pack(int score, int index) {
+        return ((long) score << 32) | (Integer.MAX_VALUE - index);
+    }
+
+    /**
+     * Scores a move.
+     *
+     * @param <M> the type of the moves
+     */
+    @FunctionalInterface
+    public interface MoveScorer<M> {
+        /**
+         * Scores a move.
+         *
+         * @param move the move
+         * @param cancelled becomes true when the search is cancelled, the score is ignored from then on
+         * @return the score, higher is better
+         */
+        int score(M move, BooleanSupplier cancelled);
+    }
+
+    /**
+     * Scores a range of candidates, splitting it in halves until one candidate remains.
+     */
+    private static class RootSplit<M> extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+        private final List<M> candidates;
+        private final MoveScorer<M> scorer;
+        private final AtomicBoolean cancelled;
+        private final LongAccumulator best;
+        private final int from;
+        private final int to;
+
+        RootSplit(List<M> candidates, MoveScorer<M> scorer, AtomicBoolean cancelled, LongAccumulator best, int from, int to) {
+            this.candidates = candidates;
+            this.scorer = scorer;
+            this.cancelled = cancelled;
+            this.best = best;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (cancelled.get()) {
+                return;
+            }
+            if (to - from == 1) {
+                int score = scorer.score(candidates.get(from), cancelled::get);
+                if (!cancelled.get()) {
+                    best.accumulate(pack(score, from));
+                }
+                return;
+            }
+            int middle = (from + to) >>> 1;
+            invokeAll(new RootSplit<>(candidates, scorer, cancelled, best, from, middle),
+                    new RootSplit<>(candidates, scorer, cancelled, best, middle, to));
+        }
+    }
+}
@@ -0,0 +1,227 @@
+package controller.game;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * <p>
+ * A persistent cache from position hash to best move, score and search depth, shared by all matches of a game type. It can
+ * be used as an opening book and endgame table: modules look up the position in <code>getAIMove()</code> before searching
+ * and store the result of deep searches afterwards.
+ * <p>
+ * Each game type has its own memory-mapped file in the directory <code>framework.positioncache</code> (<code>cache</code>
+ * by default) with <code>framework.positioncache.entries</code> entries (a power of two, at most 2^26). Lookups read the
+ * mapping without locks. Stores are written by a single background thread, so they never delay a move. An entry is stored
+ * as <code>hash ^ data</code> and <code>data</code>, so a lookup which races with a store doesn't match instead of
+ * returning a mix of two entries.
+ */
+public class PositionCache {
+    /**
+     * Returned by {@link #getMove(long)} when the position is not in the cache
+     */
+    public static final int NO_MOVE = -1;
+    /**
+     * Returned by {@link #getScore(long)} when the position is not in the cache
+     */
+    public static final int NO_SCORE = Integer.MIN_VALUE;
+    private static final Logger LOGGER = LogManager.getLogger(PositionCache.class);
+    private static final int MAGIC = 0x50544743;
+    private static final int HEADER_SIZE = 16;
+    private static final int ENTRY_SIZE = 16;
+    private static final int PROBES = 4;
+    private static final String CACHE_PATH = System.getProperty("framework.positioncache", "cache");
+    private static final int DEFAULT_ENTRIES = 1 << 20;
+    private static final int MAX_ENTRIES = 1 << 26;
+    private static final int ENTRIES = validEntries(
+            Integer.getInteger("framework.positioncache.entries", DEFAULT_ENTRIES), DEFAULT_ENTRIES);
+    private static final ConcurrentHashMap<String, PositionCache> CACHES = new ConcurrentHashMap<>();
+    private static final ExecutorService WRITER = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "position-cache-writer");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private final ByteBuffer buffer;
+    private final int mask;
+
+    private PositionCache(ByteBuffer buffer, int entries) {
+        this.buffer = buffer;
+        this.mask = entries - 1;
+    }
+
+    /**
+     * Gets the cache of a game type, opening or creating its file on first use. If the file can't be opened, the cache
+     * is kept in memory only.
+     *
+     * @param gameType the game type
+     * @return the cache
+     */
+    public static PositionCache forGameType(String gameType) {
+        return CACHES.computeIfAbsent(gameType, PositionCache::open);
+    }
+
+    private static PositionCache open(String gameType) {
+        File file = new File(CACHE_PATH, gameType.replaceAll("[^A-Za-z0-9-]", "_") + ".pcache");
+        try {
+            //noinspection ResultOfMethodCallIgnored
+            file.getParentFile().mkdirs();
+            try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.CREATE, StandardOpenOption.READ,
+                    StandardOpenOption.WRITE)) {
+                int entries = ENTRIES;
+                if (channel.size() >= HEADER_SIZE) {
+                    ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+                    channel.read(header, 0);
+                    header.flip();
+                    if (header.getInt() == MAGIC) {
+                        entries = validEntries(header.getInt(), 0);
+                    }
+                    if (entries == 0) {
+                        LOGGER.warn("Position cache {} has an invalid header, it is cleared.", file);
+                        channel.truncate(0);
+                        entries = ENTRIES;
+                    }
+                }
+                MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, size(entries));
+                buffer.putInt(0, MAGIC);
+                buffer.putInt(4, entries);
+                LOGGER.trace("Opened position cache {} with {} entries.", file, entries);
+                return new PositionCache(buffer, entries);
+            }
+        } catch (IOException e) {
+            LOGGER.error("Could not open position cache {}, using memory only.", file, e);
+            return new PositionCache(ByteBuffer.allocateDirect((int) size(ENTRIES)), ENTRIES);
+        }
+    }
+
+    /**
+     * Checks an amount of entries, which must be a positive power of two of at most {@link #MAX_ENTRIES}.
+     *
+     * @param entries the amount of entries
+     * @param fallback the amount to use if it is invalid
+     * @return the amount of entries, or the fallback
+     */
+    private static int validEntries(int entries, int fallback) {
+        if (entries > 0 && entries <= MAX_ENTRIES && Integer.bitCount(entries) == 1) {
+            return entries;
+        }
+        LOGGER.warn("Invalid amount of position cache entries {}, using {}.", entries, fallback);
+        return fallback;
+    }
+
+    /**
+     * Gets the size of a cache.
+     *
+     * @param entries the amount of entries
+     * @return the size in bytes
+     */
+    private static long size(int entries) {
+        return HEADER_SIZE + (long) entries * ENTRY_SIZE;
+    }
+
+    /**
+     * Gets the best move of a position.
+     *
+     * @param hash the hash of the position, for example a Zobrist hash
+     * @return the move, or {@link #NO_MOVE} if the position is not in the cache
+     */
+    public int getMove(long hash) {
+        long data = probe(hash);
+        return data == 0 ? NO_MOVE : (int) ((data >>> 8) & 0xFFFF);
+    }
+
+    /**
+     * Gets the score of a position.
+     *
+     * @param hash the hash of the position
+     * @return the score, or {@link #NO_SCORE} if the position is not in the cache
+     */
+    public int getScore(long hash) {
+        long data = probe(hash);
+        return data == 0 ? NO_SCORE : (int) (data >> 32);
+    }
+
+    /**
+     * Gets the depth with which a position was searched.
+     *
+     * @param hash the hash of the position
+     * @return the depth, or -1 if the position is not in the cache
+     */
+    public int getDepth(long hash) {
+        long data = probe(hash);
+        return data == 0 ? -1 : (int) (data & 0xFF) - 1;
+    }
+
+    /**
+     * Stores the result of a search in the background. An existing entry of the same position is only replaced by a search
+     * of at least the same depth.
+     *
+     * @param hash the hash of the position
+     * @param move the best move, 0 to 65535
+     * @param score the score
+     * @param depth the search depth, 0 to 254
+     */
+    public void store(long hash, int move, int score, int depth) {
+        long data = ((long) score << 32) | ((long) (move & 0xFFFF) << 8) | (Math.min(254, Math.max(0, depth)) + 1);
+        WRITER.execute(() -> put(hash, data));
+    }
+
+    /**
+     * Looks up the data of a position.
+     *
+     * @param hash the hash
+     * @return the data, or 0 if the position is not in the cache
+     */
+    private long probe(long hash) {
+        for (int i = 0; i < PROBES; i++) {
+            int offset = offset(hash, i);
+            long data = buffer.getLong(offset + 8);
+            if (data != 0 && (buffer.getLong(offset) ^ data) == hash) {
+                return data;
+            }
+        }
+        return 0;
+    }
+
+    /**
+     * Writes an entry in the slot of the same position, an empty slot, or the slot with the smallest depth. Only called by
+     * the writer thread.
+     *
+     * @param hash the hash
+     * @param data the data
+     */
+    private void put(long hash, long data) {
+        int target = -1;
+        long targetDepth = Long.MAX_VALUE;
+        for (int i = 0; i < PROBES; i++) {
+            int offset = offset(hash, i);
+            long existing = buffer.getLong(offset + 8);
+            if (existing != 0 && (buffer.getLong(offset) ^ existing) == hash) {
+                if ((existing & 0xFF) > (data & 0xFF)) {
+                    return;
+                }
+                target = offset;
+                break;
+            }
+            if ((existing & 0xFF) < targetDepth) {
+                target = offset;
+                targetDepth = existing & 0xFF;
+            }
+        }
+        buffer.putLong(target + 8, 0);
+        buffer.putLong(target, hash ^ data);
+        buffer.putLong(target + 8, data);
+    }
+
+    private int offset(long hash, int probe) {
+        return HEADER_SIZE + (int) ((hash + probe) & mask) * ENTRY_SIZE;
+    }
+}
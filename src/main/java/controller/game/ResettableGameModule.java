@@ -0,0 +1,20 @@
+package controller.game;
+
+/**
+ * <p>
+ * Optional contract for game modules which can be reused for a new match.
+ * <p>
+ * When a module implements this interface, {@link GameModuleLoader} keeps finished instances in a pool per game type and
+ * resets them for the next match instead of constructing a new module (and its view, board and AI caches) through
+ * reflection. After {@link #reset(String, String)} the module must behave exactly like a newly constructed module with the
+ * same players, which includes forgetting its move listeners: the framework adds them again for every match.
+ */
+public interface ResettableGameModule {
+    /**
+     * Resets the module to the state of a new match.
+     *
+     * @param playerOne the player who starts the match
+     * @param playerTwo the other player
+     */
+    void reset(String playerOne, String playerTwo);
+}
@@ -0,0 +1,17 @@
+package controller.game;
+
+/**
+ * Optional contract for game modules whose AI can adapt its search to the time that is really available for a turn.
+ * <p>
+ * Before every call to <code>getAIMove()</code> the framework passes the budget that is left after subtracting the
+ * measured network and dispatch overhead from the turn time of the match. Modules which don't implement this
+ * interface are simply not informed, and neither are modules in a match whose turn time is unknown.
+ */
+public interface TimeBudgetAware {
+    /**
+     * Invoked right before the AI is asked for a move.
+     *
+     * @param millis The amount of milliseconds the AI may spend on the coming move
+     */
+    void setTimeBudget(long millis);
+}
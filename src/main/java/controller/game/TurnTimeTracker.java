@@ -0,0 +1,215 @@
+package controller.game;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.util.Arrays;
+
+/**
+ * Measures how much of the turn time of a match is actually used.
+ * <p>
+ * Every turn is timestamped when <code>YOURTURN</code> arrives, when the AI starts and finishes, when the move is written to
+ * the server and when the server acknowledges it. Per match the tracker keeps the amount of turns, timeouts and the
+ * smallest slack. Over a rolling window of turns (across matches) it keeps the decision times and the overhead, which is
+ * everything that is not decision time: parsing, dispatching, writing and the round trip of the acknowledgement.
+ * <p>
+ * The rolling overhead is used to calculate the time budget for the AI, see {@link #getAIBudget()}.
+ */
+public class TurnTimeTracker {
+    private static final Logger LOGGER = LogManager.getLogger(TurnTimeTracker.class);
+    private static final int WINDOW_SIZE = Integer.getInteger("framework.turntime.window", 256);
+    private static final long SAFETY_MARGIN = Long.getLong("framework.turntime.margin", 200L);
+    private static final long NANOS_PER_MILLI = 1000000L;
+    /**
+     * Decision times (AI start till AI finish, or turn start till write for human players) in nanoseconds.
+     */
+    private final long[] decisionTimes = new long[WINDOW_SIZE];
+    /**
+     * Overhead times (the time of a turn which was not spent on deciding) in nanoseconds.
+     */
+    private final long[] overheadTimes = new long[WINDOW_SIZE];
+    private int samples;
+    private int nextSample;
+    private long turnLimit;
+    private long turnStart;
+    private long aiStart;
+    private long aiFinish;
+    private long moveWritten;
+    private String gameType;
+    private int matchTurns;
+    private int matchTimeouts;
+    private long matchMinSlack = Long.MAX_VALUE;
+    private long totalTurns;
+    private long totalTimeouts;
+    private long roundTripTimeout;
+
+    /**
+     * Starts measuring a new match.
+     *
+     * @param gameType        the game type
+     * @param turnLimitMillis the turn time of the match in milliseconds, 0 or less if it is unknown
+     */
+    public synchronized void startMatch(String gameType, int turnLimitMillis) {
+        this.gameType = gameType;
+        this.turnLimit = Math.max(0, turnLimitMillis) * NANOS_PER_MILLI;
+        this.turnStart = 0;
+        this.matchTurns = 0;
+        this.matchTimeouts = 0;
+        this.matchMinSlack = Long.MAX_VALUE;
+    }
+
+    /**
+     * Ends the current match and logs its statistics.
+     */
+    public synchronized void endMatch() {
+        if (matchTurns == 0) {
+            return;
+        }
+        LOGGER.info("{} match: {} turns, {} timeouts, minimal slack {} ms, p99 decision time {} ms, AI budget {} ms.",
+                gameType, matchTurns, matchTimeouts, matchMinSlack / NANOS_PER_MILLI, getDecisionTimePercentile(99),
+                getAIBudget());
+        matchTurns = 0;
+    }
+
+    /**
+     * Invoked when <code>YOURTURN</code> has arrived.
+     */
+    public synchronized void turnStarted() {
+        turnStart = System.nanoTime();
+        aiStart = 0;
+        aiFinish = 0;
+        moveWritten = 0;
+    }
+
+    /**
+     * Invoked right before the AI is asked for a move.
+     */
+    public synchronized void aiStarted() {
+        aiStart = System.nanoTime();
+    }
+
+    /**
+     * Invoked when the AI has returned its move.
+     */
+    public synchronized void aiFinished() {
+        aiFinish = System.nanoTime();
+    }
+
+    /**
+     * Invoked right before the move is written to the server.
+     */
+    public synchronized void moveWritten() {
+        moveWritten = System.nanoTime();
+    }
+
+    /**
+     * Invoked when the server has answered the move. This completes the turn.
+     *
+     * @param accepted true, if the server answered with OK
+     */
+    public synchronized void moveAcknowledged(boolean accepted) {
+        if (turnStart == 0 || moveWritten == 0) {
+            return;
+        }
+        long now = System.nanoTime();
+        long elapsed = now - turnStart;
+        long decision = aiStart != 0 && aiFinish != 0 ? aiFinish - aiStart : moveWritten - turnStart;
+        long slack = turnLimit - elapsed;
+
+        decisionTimes[nextSample] = decision;
+        overheadTimes[nextSample] = elapsed - decision;
+        nextSample = (nextSample + 1) % WINDOW_SIZE;
+        samples = Math.min(samples + 1, WINDOW_SIZE);
+
+        matchTurns++;
+        totalTurns++;
+        if (turnLimit > 0) {
+            matchMinSlack = Math.min(matchMinSlack, slack);
+        }
+        if ((turnLimit > 0 && slack < 0) || !accepted) {
+            matchTimeouts++;
+            totalTimeouts++;
+            LOGGER.warn("Turn exceeded its limit or was refused. Elapsed {} ms of {} ms.", elapsed / NANOS_PER_MILLI,
+                    turnLimit / NANOS_PER_MILLI);
+        }
+        turnStart = 0;
+    }
+
+    /**
+     * Sets the round trip timeout of the connection, measured by its heartbeats. The AI budget reserves at least this time
+     * for the move to reach the server.
+     *
+     * @param millis the round trip timeout in milliseconds, 0 if unknown
+     */
+    public synchronized void setRoundTripTimeout(long millis) {
+        roundTripTimeout = millis * NANOS_PER_MILLI;
+    }
+
+    /**
+     * Gets the time the AI may spend on a move: the turn time minus the p99 overhead of the rolling window (or the round
+     * trip timeout of the connection, if that is larger) and a safety margin.
+     *
+     * @return the AI budget in milliseconds, or -1 if the turn time of the match is unknown
+     */
+    public synchronized long getAIBudget() {
+        if (turnLimit == 0) {
+            return -1;
+        }
+        long overhead = Math.max(roundTripTimeout, samples == 0 ? 0 : percentile(overheadTimes, 99));
+        return Math.max(0, (turnLimit - overhead) / NANOS_PER_MILLI - SAFETY_MARGIN);
+    }
+
+    /**
+     * Gets a percentile of the decision time over the rolling window.
+     *
+     * @param percentile the percentile (0-100)
+     * @return the decision time in milliseconds
+     */
+    public synchronized long getDecisionTimePercentile(int percentile) {
+        return samples == 0 ? 0 : percentile(decisionTimes, percentile) / NANOS_PER_MILLI;
+    }
+
+    /**
+     * Gets a percentile of the overhead over the rolling window.
+     *
+     * @param percentile the percentile (0-100)
+     * @return the overhead in milliseconds
+     */
+    public synchronized long getOverheadPercentile(int percentile) {
+        return samples == 0 ? 0 : percentile(overheadTimes, percentile) / NANOS_PER_MILLI;
+    }
+
+    /**
+     * Gets the amount of turns measured since this tracker was created.
+     *
+     * @return the total turns
+     */
+    public synchronized long getTotalTurns() {
+        return totalTurns;
+    }
+
+    /**
+     * Gets the amount of turns which exceeded the turn time or were refused since this tracker was created.
+     *
+     * @return the total timeouts
+     */
+    public synchronized long getTotalTimeouts() {
+        return totalTimeouts;
+    }
+
+    /**
+     * Gets the smallest slack of the current match.
+     *
+     * @return the minimal slack in milliseconds, or the turn time if no turn has been completed yet (0 if it is unknown)
+     */
+    public synchronized long getMatchMinimalSlack() {
+        return (matchTurns == 0 || matchMinSlack == Long.MAX_VALUE ? turnLimit : matchMinSlack) / NANOS_PER_MILLI;
+    }
+
+    private long percentile(long[] values, int percentile) {
+        long[] sorted = Arrays.copyOf(values, samples);
+        Arrays.sort(sorted);
+        int index = (int) Math.ceil(percentile / 100.0 * samples) - 1;
+        return sorted[Math.max(0, Math.min(samples - 1, index))];
+    }
+}
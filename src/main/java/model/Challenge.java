@@ -0,0 +1,74 @@
+package model;
+
+/**
+ * A challenge received from another player.
+ */
+public final class Challenge {
+    private final String number;
+    private final String gameType;
+    private final String player;
+    private final String turnTime;
+    private final long receivedAt;
+
+    /**
+     * Instantiates a new challenge.
+     *
+     * @param number the challenge number
+     * @param gameType the game type
+     * @param player the challenging player
+     * @param turnTime the turn time in seconds, as sent by the server
+     * @param receivedAt the time the challenge was received, in milliseconds
+     */
+    public Challenge(String number, String gameType, String player, String turnTime, long receivedAt) {
+        this.number = number;
+        this.gameType = gameType;
+        this.player = player;
+        this.turnTime = turnTime;
+        this.receivedAt = receivedAt;
+    }
+
+    /**
+     * Gets the challenge number.
+     *
+     * @return the challenge number
+     */
+    public String getNumber() {
+        return number;
+    }
+
+    /**
+     * Gets the game type.
+     *
+     * @return the game type
+     */
+    public String getGameType() {
+        return gameType;
+    }
+
+    /**
+     * Gets the challenging player.
+     *
+     * @return the player
+     */
+    public String getPlayer() {
+        return player;
+    }
+
+    /**
+     * Gets the turn time in seconds, as sent by the server.
+     *
+     * @return the turn time
+     */
+    public String getTurnTime() {
+        return turnTime;
+    }
+
+    /**
+     * Gets the time the challenge was received.
+     *
+     * @return the time in milliseconds
+     */
+    public long getReceivedAt() {
+        return receivedAt;
+    }
+}
@@ -0,0 +1,129 @@
+package model;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * <p>
+ * The open challenges, keyed by challenge number.
+ * <p>
+ * Challenges are removed when they are accepted, rejected or cancelled. The server doesn't tell when a challenge expires, so
+ * challenges which are older than the time to live (<code>framework.challenge.ttl</code> milliseconds, 5 minutes by
+ * default) are swept periodically and reported to the expiry listener. The sweeps don't keep the registry reachable, so a
+ * registry and its model can be collected when they are no longer used.
+ */
+class ChallengeRegistry {
+    private static final Logger LOGGER = LogManager.getLogger(ChallengeRegistry.class);
+    static final long TTL = Long.getLong("framework.challenge.ttl", 300000L);
+    private static final ScheduledExecutorService SWEEPER = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "challenge-sweeper");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private final ConcurrentHashMap<String, Challenge> challenges = new ConcurrentHashMap<>();
+    private final Consumer<Challenge> expiryListener;
+
+    /**
+     * Instantiates a new registry and schedules its sweeps.
+     *
+     * @param expiryListener the listener which is notified of every expired challenge
+     */
+    ChallengeRegistry(Consumer<Challenge> expiryListener) {
+        this.expiryListener = expiryListener;
+        long period = Math.max(1000, TTL / 4);
+        Sweep sweep = new Sweep(this);
+        sweep.future = SWEEPER.scheduleWithFixedDelay(sweep, period, period, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Adds a challenge, replacing a challenge with the same number.
+     *
+     * @param challenge the challenge
+     */
+    void add(Challenge challenge) {
+        challenges.put(challenge.getNumber(), challenge);
+    }
+
+    /**
+     * Gets a challenge.
+     *
+     * @param challengeNumber the challenge number
+     * @return the challenge, or null if it is not open
+     */
+    Challenge get(String challengeNumber) {
+        return challengeNumber == null ? null : challenges.get(challengeNumber);
+    }
+
+    /**
+     * Removes a challenge.
+     *
+     * @param challengeNumber the challenge number
+     * @return the removed challenge, or null if it was not open
+     */
+    Challenge remove(String challengeNumber) {
+        return challengeNumber == null ? null : challenges.remove(challengeNumber);
+    }
+
+    /**
+     * Gets a snapshot of the open challenges.
+     *
+     * @return the challenges, which can't be modified
+     */
+    List<Challenge> snapshot() {
+        return Collections.unmodifiableList(new ArrayList<>(challenges.values()));
+    }
+
+    /**
+     * Removes the challenges older than the time to live.
+     */
+    private void sweep() {
+        long expiredBefore = System.currentTimeMillis() - TTL;
+        for (Challenge challenge : challenges.values()) {
+            if (challenge.getReceivedAt() < expiredBefore && challenges.remove(challenge.getNumber(), challenge)) {
+                LOGGER.trace("Challenge {} by {} expired.", challenge.getNumber(), challenge.getPlayer());
+                try {
+                    expiryListener.accept(challenge);
+                } catch (RuntimeException e) {
+                    LOGGER.error("Error when expiring challenge {}", challenge.getNumber(), e);
+                }
+            }
+        }
+    }
+
+    /**
+     * The periodic sweep of a registry. It only holds a weak reference to the registry, and cancels itself once the
+     * registry has been collected.
+     */
+    private static class Sweep implements Runnable {
+        private final WeakReference<ChallengeRegistry> registry;
+        private volatile ScheduledFuture<?> future;
+
+        Sweep(ChallengeRegistry registry) {
+            this.registry = new WeakReference<>(registry);
+        }
+
+        @Override
+        public void run() {
+            ChallengeRegistry current = registry.get();
+            if (current != null) {
+                current.sweep();
+                return;
+            }
+            ScheduledFuture<?> scheduled = future;
+            if (scheduled != null) {
+                scheduled.cancel(false);
+            }
+        }
+    }
+}
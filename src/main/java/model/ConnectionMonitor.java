@@ -0,0 +1,191 @@
+package model;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * <p>
+ * Monitors the health of a {@link ServerConnection}, so a dead connection is detected even when the socket still looks
+ * connected (for example a half-open TCP connection).
+ * <p>
+ * When nothing has been received for <code>framework.heartbeat.interval</code> milliseconds (5000 by default) the monitor
+ * sends <code>get gamelist</code>, which every server answers cheaply. After <code>framework.heartbeat.misses</code>
+ * unanswered heartbeats in a row (3 by default) the connection is declared dead. The round trip times of the heartbeats
+ * are smoothed like TCP does (RFC 6298), which gives a round trip timeout the AI can reserve for sending its move.
+ * <p>
+ * A move must never wait for a heartbeat. No heartbeat is sent while it is the turn of the client (see
+ * {@link #setTurnPending(boolean)}) or while another request is in progress. A heartbeat waits at most twice the round
+ * trip timeout for its response, and at least <code>framework.heartbeat.timeout</code> milliseconds (1000 by default).
+ */
+public class ConnectionMonitor {
+    private static final Logger LOGGER = LogManager.getLogger(ConnectionMonitor.class);
+    private static final long INTERVAL_NANOS = Long.getLong("framework.heartbeat.interval", 5000) * 1000000L;
+    private static final int MISS_LIMIT = Integer.getInteger("framework.heartbeat.misses", 3);
+    private static final long MIN_TIMEOUT_NANOS = Long.getLong("framework.heartbeat.timeout", 1000) * 1000000L;
+    private static final long CLOCK_GRANULARITY_NANOS = 1000000L;
+    private static final ScheduledExecutorService SCHEDULER = Executors.newScheduledThreadPool(2, runnable -> {
+        Thread thread = new Thread(runnable, "connection-monitor");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private final ServerConnection serverConnection;
+    private final Runnable onDead;
+    private final ScheduledFuture<?> heartbeat;
+    private volatile boolean dead = false;
+    private volatile boolean turnPending = false;
+    private int misses = 0;
+    private long smoothedRtt = -1;
+    private long rttVariation = 0;
+
+    /**
+     * Instantiates a new monitor and starts sending heartbeats.
+     *
+     * @param serverConnection the connection
+     * @param onDead invoked once, on the monitor thread, when the connection is declared dead
+     */
+    ConnectionMonitor(ServerConnection serverConnection, Runnable onDead) {
+        this.serverConnection = serverConnection;
+        this.onDead = onDead;
+        long period = Math.max(1, INTERVAL_NANOS / 2);
+        heartbeat = SCHEDULER.scheduleWithFixedDelay(this::check, period, period, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Sends a heartbeat if the connection has been idle, and declares it dead after too many misses.
+     */
+    private void check() {
+        if (dead) {
+            return;
+        }
+        try {
+            if (!serverConnection.isConnected()) {
+                declareDead("socket closed");
+                return;
+            }
+            if (System.nanoTime() - serverConnection.getLastReceived() < INTERVAL_NANOS) {
+                synchronized (this) {
+                    misses = 0;
+                }
+                return;
+            }
+            if (turnPending) {
+                return;
+            }
+            long rtt = serverConnection.ping(getHeartbeatTimeout());
+            if (rtt == ServerConnection.PING_SKIPPED) {
+                return;
+            }
+            int missed;
+            synchronized (this) {
+                if (rtt == ServerConnection.PING_NOT_ANSWERED) {
+                    missed = ++misses;
+                } else {
+                    missed = misses = 0;
+                    sample(rtt);
+                }
+            }
+            if (missed > 0) {
+                LOGGER.warn("Heartbeat {} of {} to {} not answered.", missed, MISS_LIMIT, serverConnection.getServerAddress());
+                if (missed >= MISS_LIMIT) {
+                    declareDead(missed + " heartbeats not answered");
+                }
+            }
+        } catch (RuntimeException e) {
+            LOGGER.error("Error when checking connection.", e);
+        }
+    }
+
+    /**
+     * Gets the time a heartbeat waits for its response.
+     *
+     * @return the timeout in nanoseconds
+     */
+    private synchronized long getHeartbeatTimeout() {
+        return smoothedRtt < 0 ? MIN_TIMEOUT_NANOS : Math.max(MIN_TIMEOUT_NANOS, 2 * (smoothedRtt
+                + Math.max(CLOCK_GRANULARITY_NANOS, 4 * rttVariation)));
+    }
+
+    /**
+     * Adds a round trip time to the estimates, as in RFC 6298.
+     *
+     * @param rtt the round trip time in nanoseconds
+     */
+    private void sample(long rtt) {
+        if (smoothedRtt < 0) {
+            smoothedRtt = rtt;
+            rttVariation = rtt / 2;
+        } else {
+            rttVariation = (3 * rttVariation + Math.abs(smoothedRtt - rtt)) / 4;
+            smoothedRtt = (7 * smoothedRtt + rtt) / 8;
+        }
+    }
+
+    private void declareDead(String reason) {
+        dead = true;
+        heartbeat.cancel(false);
+        LOGGER.error("Connection to {} is dead: {}.", serverConnection.getServerAddress(), reason);
+        serverConnection.dumpTrace("Connection dead: " + reason);
+        onDead.run();
+    }
+
+    /**
+     * Stops sending heartbeats.
+     */
+    void stop() {
+        heartbeat.cancel(false);
+    }
+
+    /**
+     * Tells whether it is the turn of the client. While it is, no heartbeats are sent, so the move doesn't have to wait
+     * for one.
+     *
+     * @param turnPending true from <code>YOURTURN</code> until the move has been answered or the match has ended
+     */
+    public void setTurnPending(boolean turnPending) {
+        this.turnPending = turnPending;
+    }
+
+    /**
+     * Checks if the connection has been declared dead.
+     *
+     * @return true, if dead
+     */
+    public boolean isDead() {
+        return dead;
+    }
+
+    /**
+     * Gets the smoothed round trip time.
+     *
+     * @return the smoothed round trip time in milliseconds, 0 until the first heartbeat has been answered
+     */
+    public synchronized long getSmoothedRtt() {
+        return Math.max(0, smoothedRtt) / 1000000L;
+    }
+
+    /**
+     * Gets the variation of the round trip time.
+     *
+     * @return the round trip time variation in milliseconds
+     */
+    public synchronized long getRttVariation() {
+        return rttVariation / 1000000L;
+    }
+
+    /**
+     * Gets the time within which a response can be expected: the smoothed round trip time plus four times its variation.
+     *
+     * @return the round trip timeout in milliseconds, 0 until the first heartbeat has been answered
+     */
+    public synchronized long getRoundTripTimeout() {
+        if (smoothedRtt < 0) {
+            return 0;
+        }
+        return (smoothedRtt + Math.max(CLOCK_GRANULARITY_NANOS, 4 * rttVariation)) / 1000000L;
+    }
+}
@@ -0,0 +1,309 @@
+package model;
+
+import controller.game.GameListener;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * <p>
+ * Passes the game events parsed by the {@link ServerResponseReader} to a dispatcher thread, which notifies the game
+ * listeners.
+ * <p>
+ * Listeners may take long, for example when the AI computes a move after <code>yourTurn</code>. Because they run on the
+ * dispatcher thread the reader keeps reading, so the OK of a pending command is never stuck behind a listener. The queue
+ * is a bounded ring of preallocated slots with one producer (the reader) and one consumer (the dispatcher), so enqueueing
+ * doesn't allocate or lock. When the ring is full the reader waits (<code>framework.dispatch.overflow=BLOCK</code>, the
+ * default) or drops the event (<code>DROP</code>). Only lobby events are ever dropped, because the lobby recovers from a
+ * missing challenge: game events always wait, since a dropped move would desync the game module. The capacity is set by
+ * <code>framework.dispatch.capacity</code> (a power of two, 1024 by default).
+ * <p>
+ * Other threads can run a task on the dispatcher thread with {@link #execute(Runnable)}, so it doesn't race with the
+ * listeners. Tasks are kept in a separate unbounded queue and run before the events which are still waiting.
+ */
+class DispatchQueue {
+    private static final Logger LOGGER = LogManager.getLogger(DispatchQueue.class);
+    private static final int DEFAULT_CAPACITY = 1024;
+    private static final long BLOCK_PARK_NANOS = 50_000;
+    private final Slot[] slots;
+    private final int mask;
+    private final AtomicLong head = new AtomicLong();
+    private final AtomicLong tail = new AtomicLong();
+    private final AtomicLong dropped = new AtomicLong();
+    private final Queue<Runnable> tasks = new ConcurrentLinkedQueue<>();
+    private final OverflowPolicy policy;
+    private final List<GameListener> listeners;
+    private final Thread dispatcher;
+    private volatile boolean running = true;
+    private volatile boolean dispatcherWaiting = false;
+    private volatile int maxDepth = 0;
+
+    /**
+     * Instantiates a new dispatch queue and starts its dispatcher thread.
+     *
+     * @param listeners the listeners to notify, read by the dispatcher thread
+     * @param name the name of the dispatcher thread
+     */
+    DispatchQueue(List<GameListener> listeners, String name) {
+        this(listeners, name, Integer.getInteger("framework.dispatch.capacity", DEFAULT_CAPACITY),
+                OverflowPolicy.valueOf(System.getProperty("framework.dispatch.overflow", OverflowPolicy.BLOCK.name())));
+    }
+
+    /**
+     * Instantiates a new dispatch queue and starts its dispatcher thread.
+     *
+     * @param listeners the listeners to notify, read by the dispatcher thread
+     * @param name the name of the dispatcher thread
+     * @param capacity the capacity, rounded down to a power of two, the default if it is not positive
+     * @param policy what the reader does when the queue is full
+     */
+    DispatchQueue(List<GameListener> listeners, String name, int capacity, OverflowPolicy policy) {
+        this.listeners = listeners;
+        this.policy = policy;
+        slots = new Slot[capacity > 0 ? Integer.highestOneBit(capacity) : DEFAULT_CAPACITY];
+        mask = slots.length - 1;
+        for (int i = 0; i < slots.length; i++) {
+            slots[i] = new Slot();
+        }
+        dispatcher = new Thread(this::dispatch, name);
+        dispatcher.setDaemon(true);
+        dispatcher.start();
+    }
+
+    /**
+     * Notifies listeners of an event.
+     *
+     * @param listeners the listeners
+     * @param type the type of the event
+     * @param first the first argument of the event
+     * @param second the second argument of the event
+     * @param third the third argument of the event
+     * @param fourth the fourth argument of the event
+     */
+    static void deliver(List<GameListener> listeners, EventType type, String first, String second, String third,
+                        String fourth) {
+        for (GameListener gameListener : listeners) {
+            switch (type) {
+                case MATCH:
+                    gameListener.match(first, second, third);
+                    break;
+                case YOURTURN:
+                    gameListener.yourTurn(first);
+                    break;
+                case MOVE:
+                    gameListener.move(first, second, third);
+                    break;
+                case CHALLENGE:
+                    gameListener.challenge(first, second, third, fourth);
+                    break;
+                case CHALLENGE_CANCELLED:
+                    gameListener.challengeCancelled(first);
+                    break;
+                case WIN:
+                    gameListener.win(first, second, third);
+                    break;
+                case LOSS:
+                    gameListener.loss(first, second, third);
+                    break;
+                case DRAW:
+                    gameListener.draw(first, second, third);
+                    break;
+            }
+        }
+    }
+
+    /**
+     * Enqueues an event. Only called by the reader thread. When the queue is full, the event is only dropped if the policy
+     * is {@link OverflowPolicy#DROP} and the event is a lobby event, or if the queue has been closed.
+     *
+     * @param type the type of the event
+     * @param first the first argument of the event
+     * @param second the second argument of the event
+     * @param third the third argument of the event
+     * @param fourth the fourth argument of the event
+     * @return false, if the event was dropped
+     */
+    boolean offer(EventType type, String first, String second, String third, String fourth) {
+        long position = head.get();
+        while (position - tail.get() >= slots.length) {
+            if ((policy == OverflowPolicy.DROP && type.isDroppable()) || !running) {
+                dropped.incrementAndGet();
+                LOGGER.warn("Dispatch queue full, dropping {} event.", type);
+                return false;
+            }
+            LockSupport.parkNanos(this, BLOCK_PARK_NANOS);
+        }
+        Slot slot = slots[(int) position & mask];
+        slot.type = type;
+        slot.first = first;
+        slot.second = second;
+        slot.third = third;
+        slot.fourth = fourth;
+        head.set(position + 1);
+        int depth = (int) (position + 1 - tail.get());
+        if (depth > maxDepth) {
+            maxDepth = depth;
+        }
+        if (dispatcherWaiting) {
+            LockSupport.unpark(dispatcher);
+        }
+        return true;
+    }
+
+    /**
+     * Runs a task on the dispatcher thread, before the events which are waiting in the queue. May be called by any
+     * thread.
+     *
+     * @param task the task
+     * @return false, if the queue has been closed and the task will not run
+     */
+    boolean execute(Runnable task) {
+        if (!running) {
+            return false;
+        }
+        tasks.add(task);
+        LockSupport.unpark(dispatcher);
+        return true;
+    }
+
+    /**
+     * Runs the tasks and takes events from the queue and notifies the listeners, until the queue is closed and empty. Runs
+     * on the dispatcher thread.
+     */
+    private void dispatch() {
+        while (true) {
+            Runnable task = tasks.poll();
+            if (task != null) {
+                try {
+                    task.run();
+                } catch (RuntimeException e) {
+                    LOGGER.error("Error when running task on the dispatcher.", e);
+                }
+                continue;
+            }
+            long position = tail.get();
+            if (position == head.get()) {
+                if (!running) {
+                    return;
+                }
+                dispatcherWaiting = true;
+                if (position == head.get() && running && tasks.isEmpty()) {
+                    LockSupport.park(this);
+                }
+                dispatcherWaiting = false;
+                continue;
+            }
+            Slot slot = slots[(int) position & mask];
+            EventType type = slot.type;
+            String first = slot.first;
+            String second = slot.second;
+            String third = slot.third;
+            String fourth = slot.fourth;
+            slot.clear();
+            tail.set(position + 1);
+            try {
+                deliver(listeners, type, first, second, third, fourth);
+            } catch (RuntimeException e) {
+                LOGGER.error("Error when dispatching {} event.", type, e);
+            }
+        }
+    }
+
+    /**
+     * Stops the dispatcher thread after the events in the queue have been dispatched.
+     */
+    void close() {
+        running = false;
+        LockSupport.unpark(dispatcher);
+    }
+
+    /**
+     * Gets the dispatcher thread.
+     *
+     * @return the dispatcher thread
+     */
+    Thread getDispatcher() {
+        return dispatcher;
+    }
+
+    /**
+     * Gets the amount of events waiting for dispatch.
+     *
+     * @return the depth of the queue
+     */
+    int getDepth() {
+        return (int) (head.get() - tail.get());
+    }
+
+    /**
+     * Gets the largest amount of events that waited for dispatch at once.
+     *
+     * @return the maximal depth of the queue
+     */
+    int getMaxDepth() {
+        return maxDepth;
+    }
+
+    /**
+     * Gets the amount of events dropped because the queue was full.
+     *
+     * @return the amount of dropped events
+     */
+    long getDropped() {
+        return dropped.get();
+    }
+
+    /**
+     * The types of game events.
+     */
+    enum EventType {
+        MATCH(false), YOURTURN(false), MOVE(false), CHALLENGE(true), CHALLENGE_CANCELLED(true), WIN(false), LOSS(false),
+        DRAW(false);
+
+        private final boolean droppable;
+
+        EventType(boolean droppable) {
+            this.droppable = droppable;
+        }
+
+        /**
+         * Checks if the event may be dropped when the queue is full: lobby events, which only update the challenges.
+         *
+         * @return true, if droppable
+         */
+        boolean isDroppable() {
+            return droppable;
+        }
+    }
+
+    /**
+     * What the reader does when the queue is full.
+     */
+    enum OverflowPolicy {
+        BLOCK, DROP
+    }
+
+    /**
+     * A preallocated event.
+     */
+    private static class Slot {
+        private EventType type;
+        private String first;
+        private String second;
+        private String third;
+        private String fourth;
+
+        void clear() {
+            type = null;
+            first = null;
+            second = null;
+            third = null;
+            fourth = null;
+        }
+    }
+}
@@ -0,0 +1,79 @@
+package model;
+
+import javax.swing.*;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Delivers model events to a Swing listener on the event dispatch thread, in batches.
+ * <p>
+ * Events can be published from any thread. They are collected until the event dispatch thread runs the batch, which
+ * delivers all events collected so far. Events with the same type and value are coalesced: only the last one is
+ * delivered, at the position of the last one. This is safe for listeners which read the current state of the model
+ * instead of the event itself.
+ */
+class EdtEventBatcher implements ModelListener {
+    private final ModelListener listener;
+    private final Object lock = new Object();
+    private List<PendingEvent> pending = new ArrayList<>();
+    private boolean scheduled = false;
+
+    /**
+     * Instantiates a new batcher.
+     *
+     * @param listener the listener which receives the batched events on the event dispatch thread
+     */
+    EdtEventBatcher(ModelListener listener) {
+        this.listener = listener;
+    }
+
+    @Override
+    public void modelChanged(Model model, ModelEvent event, String value) {
+        synchronized (lock) {
+            for (int i = 0; i < pending.size(); i++) {
+                PendingEvent other = pending.get(i);
+                if (other.event == event && Objects.equals(other.value, value)) {
+                    pending.remove(i);
+                    break;
+                }
+            }
+            pending.add(new PendingEvent(model, event, value));
+            if (scheduled) {
+                return;
+            }
+            scheduled = true;
+        }
+        SwingUtilities.invokeLater(this::deliver);
+    }
+
+    /**
+     * Delivers all pending events. Runs on the event dispatch thread.
+     */
+    private void deliver() {
+        List<PendingEvent> batch;
+        synchronized (lock) {
+            batch = pending;
+            pending = new ArrayList<>();
+            scheduled = false;
+        }
+        for (PendingEvent e : batch) {
+            listener.modelChanged(e.model, e.event, e.value);
+        }
+    }
+
+    /**
+     * An event waiting for delivery.
+     */
+    private static class PendingEvent {
+        private final Model model;
+        private final ModelEvent event;
+        private final String value;
+
+        PendingEvent(Model model, ModelEvent event, String value) {
+            this.model = model;
+            this.event = event;
+            this.value = value;
+        }
+    }
+}
@@ -0,0 +1,175 @@
+package model;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * <p>
+ * Splits the bytes read from the server into lines, without allocating per line.
+ * <p>
+ * Bytes are read straight from the input stream into one reusable byte array and decoded as UTF-8 into one reusable char
+ * array: lines of ASCII, which is all the protocol uses except player names, are copied byte by byte, other lines are
+ * decoded by a UTF-8 decoder. Each line is returned as a {@link CharSequence} view of the char array which is only valid
+ * until the next call of {@link #nextLine()}; callers materialize the parts they keep with <code>subSequence</code> or
+ * <code>toString</code>. The arrays grow when a line doesn't fit in them.
+ */
+class LineFramer {
+    private static final int BUFFER_SIZE = Integer.getInteger("framework.net.readBuffer", 16 * 1024);
+    private final InputStream in;
+    private final CharsetDecoder decoder = StandardCharsets.UTF_8.newDecoder()
+            .onMalformedInput(CodingErrorAction.REPLACE)
+            .onUnmappableCharacter(CodingErrorAction.REPLACE);
+    private final Line line = new Line();
+    private byte[] bytes = new byte[BUFFER_SIZE];
+    /**
+     * The index of the first unread byte
+     */
+    private int position;
+    /**
+     * The index after the last byte read from the stream
+     */
+    private int limit;
+    private char[] chars = new char[BUFFER_SIZE];
+
+    /**
+     * Instantiates a new line framer.
+     *
+     * @param in the stream to read from
+     */
+    LineFramer(InputStream in) {
+        this.in = in;
+    }
+
+    /**
+     * Reads the next line, without its line separator. Blocks until a whole line has been read.
+     *
+     * @return the line, only valid until the next call, or null at the end of the stream
+     * @throws IOException Signals that an I/O exception has occurred.
+     */
+    CharSequence nextLine() throws IOException {
+        int scanned = position;
+        while (true) {
+            int end = indexOf((byte) '\n', scanned);
+            if (end >= 0) {
+                return decode(end);
+            }
+            int unread = limit - position;
+            if (!fill()) {
+                return position < limit ? decode(limit) : null;
+            }
+            scanned = position + unread;
+        }
+    }
+
+    /**
+     * Finds a byte in the unread part of the buffer.
+     *
+     * @param b the byte
+     * @param from the index to start at
+     * @return the index, or -1 if not found
+     */
+    private int indexOf(byte b, int from) {
+        for (int i = from; i < limit; i++) {
+            if (bytes[i] == b) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Reads more bytes, moving the unread bytes to the start of the buffer and growing it when it is full.
+     *
+     * @return false at the end of the stream
+     * @throws IOException Signals that an I/O exception has occurred.
+     */
+    private boolean fill() throws IOException {
+        if (position > 0) {
+            System.arraycopy(bytes, position, bytes, 0, limit - position);
+            limit -= position;
+            position = 0;
+        }
+        if (limit == bytes.length) {
+            bytes = Arrays.copyOf(bytes, bytes.length * 2);
+        }
+        int read = in.read(bytes, limit, bytes.length - limit);
+        if (read < 0) {
+            return false;
+        }
+        limit += read;
+        return true;
+    }
+
+    /**
+     * Decodes the unread bytes up to an index into the line, and skips the bytes and the line separator.
+     *
+     * @param end the index of the line separator
+     * @return the line
+     */
+    private Line decode(int end) {
+        int start = position;
+        int length = end > start && bytes[end - 1] == '\r' ? end - 1 - start : end - start;
+        if (chars.length < length) {
+            chars = new char[Math.max(length, chars.length * 2)];
+        }
+        int i = 0;
+        while (i < length) {
+            byte b = bytes[start + i];
+            if (b < 0) {
+                break;
+            }
+            chars[i++] = (char) b;
+        }
+        int decoded = i;
+        if (i < length) {
+            ByteBuffer rest = ByteBuffer.wrap(bytes, start + i, length - i);
+            CharBuffer out = CharBuffer.wrap(chars, i, chars.length - i);
+            decoder.reset();
+            decoder.decode(rest, out, true);
+            decoder.flush(out);
+            decoded = out.position();
+        }
+        position = Math.min(end + 1, limit);
+        line.length = decoded;
+        return line;
+    }
+
+    /**
+     * A view of the current line.
+     */
+    private class Line implements CharSequence {
+        private int length;
+
+        @Override
+        public int length() {
+            return length;
+        }
+
+        @Override
+        public char charAt(int index) {
+            if (index < 0 || index >= length) {
+                throw new IndexOutOfBoundsException("Index " + index + ", length " + length);
+            }
+            return chars[index];
+        }
+
+        @Override
+        public CharSequence subSequence(int start, int end) {
+            if (start < 0 || end > length || start > end) {
+                throw new IndexOutOfBoundsException("Range " + start + " to " + end + ", length " + length);
+            }
+            return new String(chars, start, end - start);
+        }
+
+        @Override
+        public String toString() {
+            return new String(chars, 0, length);
+        }
+    }
+}
@@ -0,0 +1,121 @@
+package model;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * <p>
+ * The player list of a server, shared by all clients of that server in this process.
+ * <p>
+ * Many clients in one process (for example bots) all refresh the same player list. The list is kept for
+ * <code>framework.lobbycache.ttl</code> milliseconds (1000 by default), and when it is stale only one client requests it
+ * from the server while the other clients wait for that request instead of sending their own. The list is shared, so
+ * clients filter it themselves (for example to leave out their own name) and must not modify it.
+ */
+public class LobbyCache {
+    private static final Logger LOGGER = LogManager.getLogger(LobbyCache.class);
+    private static final long TTL_NANOS = Long.getLong("framework.lobbycache.ttl", 1000) * 1_000_000;
+    private static final ConcurrentHashMap<String, LobbyCache> CACHES = new ConcurrentHashMap<>();
+    private final String server;
+    private final AtomicReference<CompletableFuture<List<String>>> refresh = new AtomicReference<>();
+    private volatile List<String> playerlist;
+    private volatile long fetchedAt;
+
+    private LobbyCache(String server) {
+        this.server = server;
+    }
+
+    /**
+     * Gets the cache of a server.
+     *
+     * @param hostname the hostname of the server
+     * @param port the port of the server
+     * @return the cache
+     */
+    public static LobbyCache forServer(String hostname, int port) {
+        return CACHES.computeIfAbsent(hostname.toLowerCase() + ':' + port, LobbyCache::new);
+    }
+
+    /**
+     * Gets the player list, requesting it through a connection if it is stale and no other client is requesting it
+     * already.
+     *
+     * @param serverConnection a connection to the server
+     * @return the player list, empty if it could not be received
+     */
+    public List<String> getPlayerlist(ServerConnection serverConnection) {
+        while (true) {
+            List<String> fresh = getFreshPlayerlist();
+            if (fresh != null) {
+                return fresh;
+            }
+            CompletableFuture<List<String>> pending = refresh.get();
+            if (pending != null) {
+                LOGGER.trace("Waiting for player list of {} requested by another client.", server);
+                return pending.join();
+            }
+            CompletableFuture<List<String>> future = new CompletableFuture<>();
+            if (!refresh.compareAndSet(null, future)) {
+                continue;
+            }
+            try {
+                List<String> received = update(serverConnection.getPlayerlist());
+                future.complete(received);
+                return received;
+            } catch (RuntimeException e) {
+                future.completeExceptionally(e);
+                throw e;
+            } finally {
+                refresh.set(null);
+            }
+        }
+    }
+
+    /**
+     * Gets the player list if it was received within the time to live.
+     *
+     * @return the player list, or null if it is stale
+     */
+    public List<String> getFreshPlayerlist() {
+        List<String> current = playerlist;
+        return current != null && System.nanoTime() - fetchedAt < TTL_NANOS ? current : null;
+    }
+
+    /**
+     * Gets the last player list, even if it is stale, to show while a fresh list is requested.
+     *
+     * @return the player list, or null if none has been received yet
+     */
+    public List<String> getLastPlayerlist() {
+        return playerlist;
+    }
+
+    /**
+     * Stores a player list received from the server. An empty list is not stored, because a client always sees at least
+     * itself: an empty list means the request failed.
+     *
+     * @param received the received player list
+     * @return the stored list
+     */
+    public List<String> update(List<String> received) {
+        List<String> stored = Collections.unmodifiableList(received);
+        if (!received.isEmpty()) {
+            fetchedAt = System.nanoTime();
+            playerlist = stored;
+        }
+        return stored;
+    }
+
+    /**
+     * Makes the player list stale, so the next request goes to the server.
+     */
+    public void invalidate() {
+        playerlist = null;
+    }
+}
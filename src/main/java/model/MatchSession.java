@@ -0,0 +1,192 @@
+package model;
+
+import nl.abstractteam.gamemodule.ClientAbstractGameModule;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+/**
+ * <p>
+ * The state of one match: its game module, opponent, turn and turn message.
+ * <p>
+ * Sessions are opened by {@link Model#openSession(String, String, String, boolean)} and keyed by their id, so several
+ * matches can be played at the same time (for example over several connections). Changes are published to the model
+ * listeners only while the session is the active session of the model, which is the one shown by the views.
+ */
+public class MatchSession {
+    private static final Logger LOGGER = LogManager.getLogger(MatchSession.class);
+    private final Model model;
+    private final String id;
+    private final String clientName;
+    private final String gameType;
+    private volatile ClientAbstractGameModule gameModule;
+    private volatile String opponent;
+    private volatile String turnMessage;
+    private volatile boolean myTurn = false;
+    private volatile int turnTime;
+    private volatile String side;
+
+    /**
+     * Instantiates a new match session.
+     *
+     * @param model the model
+     * @param id the id of the session
+     * @param clientName the name of the client playing the match
+     * @param gameType the game type
+     */
+    MatchSession(Model model, String id, String clientName, String gameType) {
+        this.model = model;
+        this.id = id;
+        this.clientName = clientName;
+        this.gameType = gameType;
+    }
+
+    /**
+     * Gets the id.
+     *
+     * @return the id
+     */
+    public String getId() {
+        return id;
+    }
+
+    /**
+     * Gets the name of the client playing the match.
+     *
+     * @return the client name
+     */
+    public String getClientName() {
+        return clientName;
+    }
+
+    /**
+     * Gets the game type.
+     *
+     * @return the game type
+     */
+    public String getGameType() {
+        return gameType;
+    }
+
+    /**
+     * Gets the game module.
+     *
+     * @return the game module
+     */
+    public ClientAbstractGameModule getGameModule() {
+        return gameModule;
+    }
+
+    /**
+     * Sets the game module.
+     *
+     * @param gameModule the game module
+     */
+    public void setGameModule(ClientAbstractGameModule gameModule) {
+        LOGGER.trace("Setting game module of {} to {}.", id, gameModule.getClass().getName());
+        this.gameModule = gameModule;
+        model.sessionChanged(this, ModelEvent.GAMEMODULE_SET);
+    }
+
+    /**
+     * Gets the side the client plays in the match.
+     *
+     * @return the side, or null if the game type has no module
+     */
+    public String getSide() {
+        return side;
+    }
+
+    /**
+     * Sets the side the client plays in the match.
+     *
+     * @param side the side
+     */
+    public void setSide(String side) {
+        this.side = side;
+    }
+
+    /**
+     * Gets the turn time of the match.
+     *
+     * @return the turn time in milliseconds
+     */
+    public int getTurnTime() {
+        return turnTime;
+    }
+
+    /**
+     * Sets the turn time of the match.
+     *
+     * @param turnTime the turn time in milliseconds
+     */
+    public void setTurnTime(int turnTime) {
+        this.turnTime = turnTime;
+    }
+
+    /**
+     * Gets the opponent.
+     *
+     * @return the opponent
+     */
+    public String getOpponent() {
+        return opponent;
+    }
+
+    /**
+     * Sets the opponent.
+     *
+     * @param opponent the new opponent
+     */
+    public void setOpponent(String opponent) {
+        this.opponent = opponent;
+        model.sessionChanged(this, ModelEvent.OPPONENT_SET);
+    }
+
+    /**
+     * Checks if it is the turn of the client.
+     *
+     * @return true, if it is the turn of the client
+     */
+    public boolean isMyTurn() {
+        return myTurn;
+    }
+
+    /**
+     * Sets the turn.
+     *
+     * @param player the player to move
+     */
+    public void setTurn(String player) {
+        LOGGER.trace("Setting current turn of {} to: {}.", id, player);
+        this.myTurn = player.equals(clientName);
+        model.sessionChanged(this, ModelEvent.TURN_SWITCHED);
+    }
+
+    /**
+     * Gets the turn message.
+     *
+     * @return the turn message
+     */
+    public String getTurnMessage() {
+        return turnMessage;
+    }
+
+    /**
+     * Sets the turn message.
+     *
+     * @param turnMessage the new turn message
+     */
+    public void setTurnMessage(String turnMessage) {
+        this.turnMessage = turnMessage;
+        model.sessionChanged(this, ModelEvent.TURN_MESSAGE_CHANGED);
+    }
+
+    /**
+     * Sets the game result.
+     *
+     * @param gameResult {@link ModelEvent#GAME_WIN}, {@link ModelEvent#GAME_LOSS} or {@link ModelEvent#GAME_DRAW}
+     */
+    public void setGameResult(ModelEvent gameResult) {
+        model.sessionChanged(this, gameResult);
+    }
+}
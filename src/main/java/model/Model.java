@@ -4,88 +4,157 @@ import nl.abstractteam.gamemodule.ClientAbstractGameModule;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
-import java.awt.event.ActionEvent;
-import java.awt.event.ActionListener;
 import java.util.ArrayList;
-import java.util.HashMap;
-import java.util.Map;
+import java.util.List;
 import java.util.Random;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * The Class Model.
  */
 public class Model {
-    public static final int TURN_SWITCHED = 1;
-    public static final int GAME_CHANGED = 3;
-    public static final int GAME_DRAW = 4;
-    public static final int GAME_WIN = 5;
-    public static final int GAME_LOSS = 6;
-    public static final int NEW_CHALLENGE = 7;
-    public static final int CANCEL_CHALLENGE = 8;
-    public static final int TURN_MESSAGE_CHANGED = 9;
-    public static final String GAME_IS_CLOSED = "game is closed";
-    public static final String GAMEMODULE_SET = "gamemodule is set";
-    public static final String OPPONENT_SET = "opponent is set";
-    public static final String CHALLENGE_GAME_TYPE = "gametype";
-    public static final String CHALLENGE_PLAYER = "player";
-    public static final String CHALLENGE_GAME_NUMBER = "gamenumber";
-    public static final String CHALLENGE_TURN_TIME = "turntime";
-    private static final int SERVER_CONNECTION_SET = 2;
+    /**
+     * The turn time of a match whose turn time was not sent by the server, or not as a number
+     */
+    public static final int UNKNOWN_TURN_TIME = 0;
     private static final Logger LOGGER = LogManager.getLogger(Model.class);
-    private ArrayList<ActionListener> actionListenerList = new ArrayList<>();
-    private ClientAbstractGameModule gameModule;
+    private final ModelEventBus eventBus = new ModelEventBus();
+    private final ChallengeRegistry challenges;
+    private final ConcurrentHashMap<String, MatchSession> sessions = new ConcurrentHashMap<>();
+    private volatile MatchSession activeSession;
     private String clientName;
-    private String opponent;
     private String serverAddress;
     private String serverPort;
-    private String turnMessage;
     private String turnTime = "10";
-    private int challengeTurnTime = 10;
-    private boolean myTurn = false;
+    private int challengeTurnTime = UNKNOWN_TURN_TIME;
     private boolean playWithAI = false;
     private boolean playingGame = false;
-    private String playingGameType = "";
-    private ArrayList<String> challengeGameTypes;
-    private ArrayList<String> challengePlayers;
-    private ArrayList<String> challengeNumbers;
-    private ArrayList<String> challengeTurnTimes;
-    private HashMap<String, String[]> gameSides = new HashMap<>();
-    private HashMap<String, String> chosenGameSide = new HashMap<>();
+    private ConcurrentHashMap<String, String[]> gameSides = new ConcurrentHashMap<>();
+    private ConcurrentHashMap<String, String> chosenGameSide = new ConcurrentHashMap<>();
     private Random random = new Random();
 
     /**
      * Instantiates a new model.
      */
     public Model() {
-        challengeGameTypes = new ArrayList<>();
-        challengePlayers = new ArrayList<>();
-        challengeNumbers = new ArrayList<>();
-        challengeTurnTimes = new ArrayList<>();
+        challenges = new ChallengeRegistry(challenge -> processEvent(ModelEvent.CANCEL_CHALLENGE, challenge.getNumber()));
+    }
+
+    /**
+     * Adds a listener which is notified synchronously, on the thread which changed the model.
+     *
+     * @param modelListener the model listener
+     * @param events the events to listen to, all events if none are given
+     */
+    public void addModelListener(ModelListener modelListener, ModelEvent... events) {
+        eventBus.subscribe(modelListener, events);
+    }
+
+    /**
+     * Adds a listener which updates Swing components. Its events are delivered on the event dispatch thread, in batches
+     * which coalesce repeated changes, instead of synchronously on the thread which changed the model.
+     *
+     * @param viewListener the view listener
+     * @param events the events to listen to, all events if none are given
+     */
+    public void addViewListener(ModelListener viewListener, ModelEvent... events) {
+        eventBus.subscribe(new EdtEventBatcher(viewListener), events);
+    }
+
+    /**
+     * Publishes an event to the listeners.
+     *
+     * @param event the event
+     * @param value the value of the event
+     */
+    private void processEvent(ModelEvent event, String value) {
+        eventBus.publish(this, event, value);
+    }
+
+    /**
+     * Opens a session for a new match, replacing an open session with the same id.
+     *
+     * @param id the id of the session, unique among the matches played at the same time
+     * @param clientName the name of the client playing the match
+     * @param gameType the game type
+     * @param visible true if the session becomes the active session, shown by the views
+     * @return the session
+     */
+    public MatchSession openSession(String id, String clientName, String gameType, boolean visible) {
+        LOGGER.trace("Opening {} session {}.", gameType, id);
+        MatchSession session = new MatchSession(this, id, clientName, gameType);
+        sessions.put(id, session);
+        if (visible) {
+            activeSession = session;
+        }
+        return session;
     }
 
     /**
-     * Adds the action listener.
+     * Closes a session. If it was the active session, there is no active session anymore.
      *
-     * @param actionListener the action listener
+     * @param session the session
      */
-    public void addActionListener(ActionListener actionListener) {
-        actionListenerList.add(actionListener);
+    public void closeSession(MatchSession session) {
+        sessions.remove(session.getId(), session);
+        if (activeSession == session) {
+            activeSession = null;
+        }
+    }
+
+    /**
+     * Gets an open session.
+     *
+     * @param id the id of the session
+     * @return the session, or null if it is not open
+     */
+    public MatchSession getSession(String id) {
+        return sessions.get(id);
+    }
+
+    /**
+     * Gets a snapshot of the open sessions.
+     *
+     * @return the sessions
+     */
+    public List<MatchSession> getSessions() {
+        return new ArrayList<>(sessions.values());
+    }
+
+    /**
+     * Gets the active session, shown by the views.
+     *
+     * @return the active session, or null if there is none
+     */
+    public MatchSession getActiveSession() {
+        return activeSession;
+    }
+
+    /**
+     * Publishes a change of a session, if it is the active session.
+     *
+     * @param session the session
+     * @param event the event
+     */
+    void sessionChanged(MatchSession session, ModelEvent event) {
+        if (session == activeSession) {
+            processEvent(event, null);
+        }
     }
 
     /**
-     * Process event.
+     * Gets the time after which an open challenge expires, see <code>framework.challenge.ttl</code>.
      *
-     * @param e the e
+     * @return the time to live of a challenge in milliseconds
      */
-    private void processEvent(ActionEvent e) {
-        for (ActionListener l : actionListenerList)
-            l.actionPerformed(e);
+    public static long getChallengeTimeToLive() {
+        return ChallengeRegistry.TTL;
     }
 
     /**
      * Gets the challenge turn time.
      *
-     * @return the challenge turn time
+     * @return the challenge turn time in milliseconds, {@link #UNKNOWN_TURN_TIME} if it is unknown
      */
     public int getChallengeTurnTime() {
         return challengeTurnTime;
@@ -97,7 +166,17 @@ public class Model {
      * @param challengeTurnTime the new challenge turn time
      */
     public void setChallengeTurnTime(String challengeTurnTime) {
-        this.challengeTurnTime = challengeTurnTime.matches("\\d+") ? Integer.parseInt(challengeTurnTime) * 1000 : 10000;
+        this.challengeTurnTime = parseTurnTime(challengeTurnTime);
+    }
+
+    /**
+     * Converts a turn time as sent by the server to milliseconds.
+     *
+     * @param turnTime the turn time in seconds
+     * @return the turn time in milliseconds, or {@link #UNKNOWN_TURN_TIME} if it is missing or not a number
+     */
+    public static int parseTurnTime(String turnTime) {
+        return turnTime != null && turnTime.matches("\\d{1,6}") ? Integer.parseInt(turnTime) * 1000 : UNKNOWN_TURN_TIME;
     }
 
     /**
@@ -155,25 +234,13 @@ public class Model {
     }
 
     /**
-     * Gets the game module.
+     * Gets the game module of the active session.
      *
-     * @return the game module
+     * @return the game module, or null if there is no active session
      */
     public ClientAbstractGameModule getGameModule() {
-        return gameModule;
-    }
-
-    /**
-     * Sets the game module.
-     *
-     * @param gameModule the game module
-     * @param gameType the game type
-     */
-    public void setGameModule(ClientAbstractGameModule gameModule, String gameType) {
-        LOGGER.trace("Setting game module to {}.", gameModule.getClass().getName());
-        this.gameModule = gameModule;
-        this.playingGameType = gameType;
-        processEvent(new ActionEvent(this, GAME_CHANGED, GAMEMODULE_SET));
+        MatchSession session = activeSession;
+        return session == null ? null : session.getGameModule();
     }
 
     /**
@@ -186,23 +253,29 @@ public class Model {
     }
 
     /**
-     * Sets the playing game.
+     * Sets the playing game. When the game is no longer played, the active session is closed.
      *
      * @param playingGame the new playing game
      */
     public void setPlayingGame(boolean playingGame) {
         this.playingGame = playingGame;
-        if (!playingGame)
-            processEvent(new ActionEvent(this, GAME_CHANGED, GAME_IS_CLOSED));
+        if (!playingGame) {
+            MatchSession session = activeSession;
+            if (session != null) {
+                closeSession(session);
+            }
+            processEvent(ModelEvent.GAME_IS_CLOSED, null);
+        }
     }
 
     /**
-     * Gets the playing game type.
+     * Gets the game type of the active session.
      *
-     * @return the playing game type
+     * @return the playing game type, or an empty string if there is no active session
      */
     public String getPlayingGameType() {
-        return playingGameType;
+        MatchSession session = activeSession;
+        return session == null ? "" : session.getGameType();
     }
 
     /**
@@ -224,22 +297,13 @@ public class Model {
     }
 
     /**
-     * Gets the opponent.
+     * Gets the opponent of the active session.
      *
-     * @return the opponent
+     * @return the opponent, or null if there is no active session
      */
     public String getOpponent() {
-        return opponent;
-    }
-
-    /**
-     * Sets the opponent.
-     *
-     * @param opponent the new opponent
-     */
-    public void setOpponent(String opponent) {
-        this.opponent = opponent;
-        processEvent(new ActionEvent(this, GAME_CHANGED, OPPONENT_SET));
+        MatchSession session = activeSession;
+        return session == null ? null : session.getOpponent();
     }
 
     /**
@@ -259,7 +323,7 @@ public class Model {
      */
     public Model setServerAddress(String serverAddress) {
         this.serverAddress = serverAddress;
-        processEvent(new ActionEvent(this, SERVER_CONNECTION_SET, null));
+        processEvent(ModelEvent.SERVER_CONNECTION_SET, null);
         return this;
     }
 
@@ -284,23 +348,13 @@ public class Model {
     }
 
     /**
-     * Gets the turn.
+     * Gets the turn of the active session.
      *
-     * @return the turn
+     * @return true, if it is the turn of the client in the active session
      */
     public boolean getTurn() {
-        return this.myTurn;
-    }
-
-    /**
-     * Sets the turn.
-     *
-     * @param player the new turn
-     */
-    public void setTurn(String player) {
-        LOGGER.trace("Setting current turn to: {}.", player);
-        this.myTurn = player.equals(this.clientName);
-        processEvent(new ActionEvent(this, TURN_SWITCHED, null));
+        MatchSession session = activeSession;
+        return session != null && session.isMyTurn();
     }
 
     /**
@@ -314,31 +368,13 @@ public class Model {
     }
 
     /**
-     * Gets the turn message.
+     * Gets the turn message of the active session.
      *
-     * @return the turn message
+     * @return the turn message, or null if there is no active session
      */
     public String getTurnMessage() {
-        return turnMessage;
-    }
-
-    /**
-     * Sets the turn message.
-     *
-     * @param message the new turn message
-     */
-    public void setTurnMessage(String message) {
-        turnMessage = message;
-        processEvent(new ActionEvent(this, TURN_MESSAGE_CHANGED, null));
-    }
-
-    /**
-     * Sets the game result.
-     *
-     * @param gameResult the new game result
-     */
-    public void setGameResult(int gameResult) {
-        processEvent(new ActionEvent(this, gameResult, null));
+        MatchSession session = activeSession;
+        return session == null ? null : session.getTurnMessage();
     }
 
     /**
@@ -368,25 +404,40 @@ public class Model {
      * @param challengeTurnTime the challenge turn time
      */
     public void setNewChallenge(String gameType, String player, String challengeNumber, String challengeTurnTime) {
-        challengeGameTypes.add(gameType);
-        challengePlayers.add(player);
-        challengeNumbers.add(challengeNumber);
-        challengeTurnTimes.add(challengeTurnTime);
-        processEvent(new ActionEvent(this, NEW_CHALLENGE, Integer.toString(challengeGameTypes.size() - 1)));
+        challenges.add(new Challenge(challengeNumber, gameType, player, challengeTurnTime, System.currentTimeMillis()));
+        processEvent(ModelEvent.NEW_CHALLENGE, challengeNumber);
+    }
+
+    /**
+     * Gets an open challenge.
+     *
+     * @param challengeNumber the challenge number
+     * @return the challenge, or null if it is not open
+     */
+    public Challenge getChallenge(String challengeNumber) {
+        return challenges.get(challengeNumber);
     }
 
     /**
-     * Gets the challenge.
+     * Gets a snapshot of the open challenges.
      *
-     * @param index the index
-     * @return the challenge
+     * @return the challenges
      */
-    public Map<String, String> getChallenge(int index) {
-        HashMap<String, String> challenge = new HashMap<>();
-        challenge.put(CHALLENGE_GAME_TYPE, challengeGameTypes.get(index));
-        challenge.put(CHALLENGE_PLAYER, challengePlayers.get(index));
-        challenge.put(CHALLENGE_GAME_NUMBER, challengeNumbers.get(index));
-        challenge.put(CHALLENGE_TURN_TIME, challengeTurnTimes.get(index));
+    public List<Challenge> getChallenges() {
+        return challenges.snapshot();
+    }
+
+    /**
+     * Removes a challenge which has been accepted or rejected.
+     *
+     * @param challengeNumber the challenge number
+     * @return the challenge, or null if it was not open
+     */
+    public Challenge removeChallenge(String challengeNumber) {
+        Challenge challenge = challenges.remove(challengeNumber);
+        if (challenge != null) {
+            processEvent(ModelEvent.CANCEL_CHALLENGE, challengeNumber);
+        }
         return challenge;
     }
 
@@ -396,6 +447,7 @@ public class Model {
      * @param challengeNumber the challenge number
      */
     public void cancelChallenge(String challengeNumber) {
-        processEvent(new ActionEvent(this, CANCEL_CHALLENGE, challengeNumber));
+        challenges.remove(challengeNumber);
+        processEvent(ModelEvent.CANCEL_CHALLENGE, challengeNumber);
     }
 }
@@ -0,0 +1,51 @@
+package model;
+
+/**
+ * The changes of the {@link Model} which are published to {@link ModelListener}s.
+ */
+public enum ModelEvent {
+    /**
+     * The player to move has changed.
+     */
+    TURN_SWITCHED,
+    /**
+     * The server address has been set.
+     */
+    SERVER_CONNECTION_SET,
+    /**
+     * A game module has been set for a new match.
+     */
+    GAMEMODULE_SET,
+    /**
+     * The game has been closed, the client returns to the lobby.
+     */
+    GAME_IS_CLOSED,
+    /**
+     * The opponent of the match has been set.
+     */
+    OPPONENT_SET,
+    /**
+     * The match ended in a draw.
+     */
+    GAME_DRAW,
+    /**
+     * The match has been won.
+     */
+    GAME_WIN,
+    /**
+     * The match has been lost.
+     */
+    GAME_LOSS,
+    /**
+     * A new challenge has been received. The value of the event is the challenge number.
+     */
+    NEW_CHALLENGE,
+    /**
+     * A challenge has been cancelled, accepted, rejected or has expired. The value of the event is the challenge number.
+     */
+    CANCEL_CHALLENGE,
+    /**
+     * The turn message has changed.
+     */
+    TURN_MESSAGE_CHANGED
+}
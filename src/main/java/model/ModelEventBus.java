@@ -0,0 +1,58 @@
+package model;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * <p>
+ * Publishes {@link ModelEvent}s to the listeners which subscribed to them.
+ * <p>
+ * Every event type has its own array of subscribers. Subscribing replaces the array with a copy (compare-and-set), so
+ * publishing is a plain loop over an array without locks, and listeners can be added from any thread while events are
+ * being published.
+ */
+class ModelEventBus {
+    private static final ModelListener[] NO_LISTENERS = new ModelListener[0];
+    private final AtomicReferenceArray<ModelListener[]> subscribers;
+
+    /**
+     * Instantiates a new event bus without subscribers.
+     */
+    ModelEventBus() {
+        subscribers = new AtomicReferenceArray<>(ModelEvent.values().length);
+        for (int i = 0; i < subscribers.length(); i++) {
+            subscribers.set(i, NO_LISTENERS);
+        }
+    }
+
+    /**
+     * Subscribes a listener to events.
+     *
+     * @param listener the listener
+     * @param events   the events to subscribe to, all events if none are given
+     */
+    void subscribe(ModelListener listener, ModelEvent... events) {
+        for (ModelEvent event : events.length == 0 ? ModelEvent.values() : events) {
+            ModelListener[] current;
+            ModelListener[] updated;
+            do {
+                current = subscribers.get(event.ordinal());
+                updated = Arrays.copyOf(current, current.length + 1);
+                updated[current.length] = listener;
+            } while (!subscribers.compareAndSet(event.ordinal(), current, updated));
+        }
+    }
+
+    /**
+     * Publishes an event to its subscribers, on the calling thread.
+     *
+     * @param model the model which has changed
+     * @param event the event
+     * @param value the value of the event, may be null
+     */
+    void publish(Model model, ModelEvent event, String value) {
+        for (ModelListener listener : subscribers.get(event.ordinal())) {
+            listener.modelChanged(model, event, value);
+        }
+    }
+}
@@ -0,0 +1,15 @@
+package model;
+
+/**
+ * Listener for changes of the {@link Model}, see {@link Model#addModelListener(ModelListener, ModelEvent...)}.
+ */
+public interface ModelListener {
+    /**
+     * Invoked when the model has changed.
+     *
+     * @param model the model which has changed
+     * @param event the change
+     * @param value the value belonging to the change, or null if the event has none
+     */
+    void modelChanged(Model model, ModelEvent event, String value);
+}
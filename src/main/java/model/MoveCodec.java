@@ -0,0 +1,150 @@
+package model;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * <p>
+ * Encodes the moves of a game type as int codes, with the command to send each move built once.
+ * <p>
+ * A module which implements {@link controller.game.EncodedMoveModule} defines the moves of its game up front (for example
+ * code 0 to 63 for the squares of a board), see {@link #forGameType(String, String[])}. Those moves are compared as
+ * codes instead of parsed, and {@link ServerConnection#move(MoveCodec, int)} writes the prebuilt bytes of
+ * <code>move &lt;move&gt;</code> instead of concatenating a command.
+ * <p>
+ * Only the defined moves are encoded. Any other string, such as an illegal move or an error echoed by the server, gets
+ * {@link #NO_CODE} and takes the String path; it is never added to the codec, which is shared by every match of the game
+ * type in the process.
+ */
+public class MoveCodec {
+    /**
+     * Returned by {@link #encode(String)} for a move which is not defined by the module
+     */
+    public static final int NO_CODE = -1;
+    private static final String MOVE_COMMAND = "move ";
+    private static final ConcurrentHashMap<String, MoveCodec> CODECS = new ConcurrentHashMap<>();
+    private final String gameType;
+    private final String[] moves;
+    private final Map<String, Integer> codes;
+    private final String[] commands;
+    private final byte[][] commandBytes;
+
+    private MoveCodec(String gameType, String[] definedMoves) {
+        this.gameType = gameType;
+        this.moves = definedMoves;
+        codes = new HashMap<>(definedMoves.length * 2);
+        commands = new String[definedMoves.length];
+        commandBytes = new byte[definedMoves.length][];
+        for (int code = 0; code < definedMoves.length; code++) {
+            codes.putIfAbsent(definedMoves[code], code);
+            commands[code] = MOVE_COMMAND + definedMoves[code];
+            commandBytes[code] = (commands[code] + '\n').getBytes(StandardCharsets.UTF_8);
+        }
+    }
+
+    /**
+     * Gets the codec of a game type. Without a module which defines its moves, the codec encodes no moves.
+     *
+     * @param gameType the game type
+     * @return the codec
+     */
+    public static MoveCodec forGameType(String gameType) {
+        return CODECS.computeIfAbsent(gameType, type -> new MoveCodec(type, new String[0]));
+    }
+
+    /**
+     * Gets the codec of a game type in which the moves of a module have the codes of their index. A codec with other codes
+     * is replaced.
+     *
+     * @param gameType the game type
+     * @param definedMoves the moves, the index of a move is its code
+     * @return the codec
+     */
+    public static MoveCodec forGameType(String gameType, String[] definedMoves) {
+        return CODECS.compute(gameType, (type, codec) -> codec != null && Arrays.equals(codec.moves, definedMoves)
+                ? codec : new MoveCodec(type, definedMoves.clone()));
+    }
+
+    /**
+     * Gets the code of a move defined by the module.
+     *
+     * @param move the move
+     * @return the code, or {@link #NO_CODE} if the move is not defined
+     */
+    public int encode(String move) {
+        Integer code = move == null ? null : codes.get(move);
+        return code == null ? NO_CODE : code;
+    }
+
+    /**
+     * Checks if a code is one of the moves defined by the module.
+     *
+     * @param code the code
+     * @return true, if the code is defined by the module
+     */
+    public boolean isDefined(int code) {
+        return code >= 0 && code < moves.length;
+    }
+
+    /**
+     * Gets the move of a code.
+     *
+     * @param code the code
+     * @return the move, the same instance for every call
+     */
+    public String decode(int code) {
+        checkCode(code);
+        return moves[code];
+    }
+
+    /**
+     * Gets the one instance of a move, so the same move received twice is not kept twice.
+     *
+     * @param move the move
+     * @return the interned move, or the move itself if it is not defined
+     */
+    public String intern(String move) {
+        int code = encode(move);
+        return code == NO_CODE ? move : moves[code];
+    }
+
+    /**
+     * Gets the command which sends a move, without line separator.
+     *
+     * @param code the code
+     * @return the command
+     */
+    String getCommand(int code) {
+        checkCode(code);
+        return commands[code];
+    }
+
+    /**
+     * Gets the UTF-8 bytes of the command which sends a move, including the line separator.
+     *
+     * @param code the code
+     * @return the bytes, which must not be modified
+     */
+    byte[] getCommandBytes(int code) {
+        checkCode(code);
+        return commandBytes[code];
+    }
+
+    /**
+     * Gets the game type.
+     *
+     * @return the game type
+     */
+    public String getGameType() {
+        return gameType;
+    }
+
+    private void checkCode(int code) {
+        if (!isDefined(code)) {
+            throw new IllegalArgumentException("Unknown move code " + code + " for " + gameType);
+        }
+    }
+}
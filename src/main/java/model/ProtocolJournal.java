@@ -0,0 +1,122 @@
+package model;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * <p>
+ * An append-only, memory-mapped recording of all lines sent to and received from the server.
+ * <p>
+ * The file starts with a header ({@link #MAGIC} and {@link #VERSION}), followed by records of the form
+ * <code>long nanoTime, byte direction, int length, byte[length] UTF-8 line</code>. The file grows in chunks which are
+ * zero filled, so a direction of 0 marks the end of the journal. Journals are read back by {@link ProtocolReplay}.
+ */
+public class ProtocolJournal {
+    /**
+     * "PTGJ", the first int of every journal
+     */
+    static final int MAGIC = 0x5054474A;
+    static final int VERSION = 1;
+    static final int HEADER_SIZE = 8;
+    static final int RECORD_HEADER_SIZE = 13;
+    private static final Logger LOGGER = LogManager.getLogger(ProtocolJournal.class);
+    private static final int CHUNK_SIZE = 4 * 1024 * 1024;
+    private final File file;
+    private final FileChannel channel;
+    private MappedByteBuffer buffer;
+    /**
+     * The file position of the start of the current mapping
+     */
+    private long mappedPosition;
+
+    /**
+     * Creates a new journal, overwriting the file if it exists.
+     *
+     * @param file the file to write to
+     * @throws IOException Signals that an I/O exception has occurred.
+     */
+    public ProtocolJournal(File file) throws IOException {
+        this.file = file;
+        channel = FileChannel.open(file.toPath(), StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING,
+                StandardOpenOption.READ, StandardOpenOption.WRITE);
+        buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, CHUNK_SIZE);
+        buffer.putInt(MAGIC);
+        buffer.putInt(VERSION);
+    }
+
+    /**
+     * Appends a line to the journal.
+     *
+     * @param direction {@link ProtocolTrace#INBOUND} or {@link ProtocolTrace#OUTBOUND}
+     * @param line      the line
+     */
+    public synchronized void append(char direction, CharSequence line) {
+        if (line == null || !channel.isOpen()) {
+            return;
+        }
+        long timestamp = System.nanoTime();
+        byte[] encoded = null;
+        int length = line.length();
+        for (int i = 0; i < line.length(); i++) {
+            if (line.charAt(i) >= 0x80) {
+                encoded = line.toString().getBytes(StandardCharsets.UTF_8);
+                length = encoded.length;
+                break;
+            }
+        }
+
+        try {
+            ensureRemaining(RECORD_HEADER_SIZE + length);
+        } catch (IOException e) {
+            LOGGER.error("Could not grow journal {}", file, e);
+            return;
+        }
+        buffer.putLong(timestamp);
+        buffer.put((byte) direction);
+        buffer.putInt(length);
+        if (encoded != null) {
+            buffer.put(encoded);
+        } else {
+            for (int i = 0; i < length; i++) {
+                buffer.put((byte) line.charAt(i));
+            }
+        }
+    }
+
+    /**
+     * Flushes the journal to disk and closes it.
+     */
+    public synchronized void close() {
+        if (!channel.isOpen()) {
+            return;
+        }
+        buffer.force();
+        try {
+            channel.close();
+        } catch (IOException e) {
+            LOGGER.warn("Error closing journal {}", file, e);
+        }
+    }
+
+    /**
+     * Maps the next chunk of the file when the current mapping can't hold <code>size</code> more bytes.
+     *
+     * @param size the amount of bytes which will be written
+     * @throws IOException Signals that an I/O exception has occurred.
+     */
+    private void ensureRemaining(int size) throws IOException {
+        if (buffer.remaining() >= size) {
+            return;
+        }
+        buffer.force();
+        mappedPosition += buffer.position();
+        buffer = channel.map(FileChannel.MapMode.READ_WRITE, mappedPosition, Math.max(CHUNK_SIZE, size));
+    }
+}
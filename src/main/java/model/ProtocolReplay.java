@@ -0,0 +1,158 @@
+package model;
+
+import controller.game.GameController;
+import controller.game.GameListener;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.json.JSONException;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.util.function.Consumer;
+
+/**
+ * <p>
+ * Feeds a journal recorded by {@link ProtocolJournal} back through the parser of {@link ServerResponseReader} and the
+ * registered {@link GameListener}s, either with the recorded timing or as fast as possible.
+ * <p>
+ * Inbound lines are parsed and dispatched like they were received from the server, outbound lines are handed to the
+ * outbound listener (if set) so a driver can, for example, pick up the login name.
+ */
+public class ProtocolReplay {
+    private static final Logger LOGGER = LogManager.getLogger(ProtocolReplay.class);
+    private final File file;
+    private final ServerResponseReader reader = new ServerResponseReader(new ProtocolTrace());
+    private Consumer<String> outboundListener;
+
+    /**
+     * Instantiates a new replay.
+     *
+     * @param file the journal to replay
+     */
+    public ProtocolReplay(File file) {
+        this.file = file;
+    }
+
+    /**
+     * Replays a journal with a {@link GameController} and prints the throughput. Usage:
+     * <code>ProtocolReplay journal [realtime]</code>
+     *
+     * @param args the arguments
+     * @throws IOException Signals that an I/O exception has occurred.
+     */
+    public static void main(String[] args) throws IOException {
+        if (args.length < 1) {
+            System.out.println("Usage: ProtocolReplay <journal> [realtime]");
+            return;
+        }
+        Model model = new Model();
+        model.setPlayWithAI(true);
+        ProtocolReplay replay = new ProtocolReplay(new File(args[0]));
+        replay.addGameListener(new GameController(model, null));
+        replay.setOutboundListener(line -> {
+            if (line.startsWith("login ")) {
+                model.setClientName(line.substring("login ".length()));
+            }
+        });
+
+        long start = System.nanoTime();
+        long lines = replay.replay(args.length > 1 && "realtime".equals(args[1]));
+        long duration = System.nanoTime() - start;
+        System.out.printf("Replayed %d lines in %d ms (%.0f lines/s)%n", lines, duration / 1000000,
+                lines / (duration / 1e9));
+    }
+
+    /**
+     * Add a new gamelistener.
+     *
+     * @param listener The listener which wishes to be notified of game events
+     */
+    public void addGameListener(GameListener listener) {
+        reader.addGameListener(listener);
+    }
+
+    /**
+     * Sets the listener which receives the outbound lines of the journal.
+     *
+     * @param outboundListener the outbound listener
+     */
+    public void setOutboundListener(Consumer<String> outboundListener) {
+        this.outboundListener = outboundListener;
+    }
+
+    /**
+     * Replays the journal.
+     *
+     * @param recordedSpeed true to wait between lines like they were recorded, false to replay as fast as possible
+     * @return the amount of lines replayed
+     * @throws IOException Signals that an I/O exception has occurred, or the file is not a journal.
+     */
+    public long replay(boolean recordedSpeed) throws IOException {
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, Math.min(channel.size(), Integer.MAX_VALUE));
+            if (buffer.remaining() < ProtocolJournal.HEADER_SIZE || buffer.getInt() != ProtocolJournal.MAGIC) {
+                throw new IOException(file + " is not a protocol journal");
+            }
+            int version = buffer.getInt();
+            if (version != ProtocolJournal.VERSION) {
+                throw new IOException("Unsupported journal version " + version);
+            }
+
+            long lines = 0;
+            long firstRecorded = 0;
+            long firstReplayed = System.nanoTime();
+            byte[] bytes = new byte[1024];
+            while (buffer.remaining() >= ProtocolJournal.RECORD_HEADER_SIZE) {
+                long timestamp = buffer.getLong();
+                char direction = (char) buffer.get();
+                int length = buffer.getInt();
+                if (direction == 0 || length > buffer.remaining()) {
+                    break;
+                }
+                if (bytes.length < length) {
+                    bytes = new byte[length];
+                }
+                buffer.get(bytes, 0, length);
+                String line = new String(bytes, 0, length, StandardCharsets.UTF_8);
+
+                if (lines == 0) {
+                    firstRecorded = timestamp;
+                }
+                if (recordedSpeed) {
+                    waitUntil(firstReplayed + (timestamp - firstRecorded));
+                }
+
+                if (direction == ProtocolTrace.OUTBOUND) {
+                    if (outboundListener != null) {
+                        outboundListener.accept(line);
+                    }
+                } else {
+                    try {
+                        reader.parse(line);
+                    } catch (JSONException e) {
+                        LOGGER.error("Error when replaying line {}", line, e);
+                    }
+                }
+                lines++;
+            }
+            return lines;
+        }
+    }
+
+    private void waitUntil(long nanoTime) {
+        long remaining;
+        while ((remaining = nanoTime - System.nanoTime()) > 0) {
+            try {
+                Thread.sleep(remaining / 1000000, (int) (remaining % 1000000));
+            } catch (InterruptedException e) {
+                LOGGER.warn("Interrupt exception");
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+}
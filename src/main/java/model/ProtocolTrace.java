@@ -0,0 +1,70 @@
+package model;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+/**
+ * <p>
+ * A ring buffer with the last lines which were sent to and received from the server. Recording a line only copies its
+ * characters into preallocated arrays, so it can be done for every line without logging on the network path.
+ * <p>
+ * When something goes wrong the buffer can be dumped to the <code>model.ProtocolTrace</code> logger, which gives the
+ * lines leading up to the error without having to run with trace logging.
+ */
+public class ProtocolTrace {
+    /**
+     * Direction of a line received from the server
+     */
+    public static final char INBOUND = '<';
+    /**
+     * Direction of a line sent to the server
+     */
+    public static final char OUTBOUND = '>';
+    private static final Logger LOGGER = LogManager.getLogger(ProtocolTrace.class);
+    private static final int CAPACITY = Integer.getInteger("framework.trace.lines", 256);
+    private static final int MAX_LINE_LENGTH = 512;
+    private final char[][] lines = new char[CAPACITY][MAX_LINE_LENGTH];
+    private final int[] lengths = new int[CAPACITY];
+    private final char[] directions = new char[CAPACITY];
+    private final long[] timestamps = new long[CAPACITY];
+    /**
+     * The amount of lines recorded since the creation of this trace
+     */
+    private long recorded;
+
+    /**
+     * Records a line. Lines longer than the maximum line length are truncated.
+     *
+     * @param direction {@link #INBOUND} or {@link #OUTBOUND}
+     * @param line      the line
+     */
+    public synchronized void record(char direction, CharSequence line) {
+        if (line == null) {
+            return;
+        }
+        int slot = (int) (recorded % CAPACITY);
+        char[] target = lines[slot];
+        int length = Math.min(line.length(), MAX_LINE_LENGTH);
+        for (int i = 0; i < length; i++) {
+            target[i] = line.charAt(i);
+        }
+        lengths[slot] = length;
+        directions[slot] = direction;
+        timestamps[slot] = System.currentTimeMillis();
+        recorded++;
+    }
+
+    /**
+     * Writes all buffered lines, oldest first, to the log.
+     *
+     * @param reason the reason for the dump, logged before the lines
+     */
+    public synchronized void dump(String reason) {
+        long first = Math.max(0, recorded - CAPACITY);
+        LOGGER.error("{}. Last {} protocol lines:", reason, recorded - first);
+        for (long i = first; i < recorded; i++) {
+            int slot = (int) (i % CAPACITY);
+            LOGGER.error("{} {} {}", timestamps[slot], directions[slot], new String(lines[slot], 0, lengths[slot]));
+        }
+    }
+}
@@ -6,22 +6,55 @@ import org.apache.logging.log4j.Logger;
 import org.json.JSONArray;
 import org.json.JSONException;
 
+import java.io.BufferedOutputStream;
+import java.io.File;
 import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
 import java.io.PrintWriter;
+import java.net.InetSocketAddress;
 import java.net.Socket;
+import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.locks.ReentrantLock;
 
 /**
+ * <p>
  * The Class ServerConnection.
+ * <p>
+ * The socket is configured by the system properties <code>framework.net.tcpNoDelay</code> (true by default, so a move is
+ * sent without waiting for more data), <code>framework.net.keepAlive</code> (true by default) and
+ * <code>framework.net.sendBuffer</code> (bytes, the system default when not set). With <code>framework.net.batch</code>
+ * the requests of {@link #getLists(String...)} are pipelined: all commands are written with one flush before the
+ * responses are read. Moves are always flushed immediately.
  */
 public class ServerConnection {
     private static final Logger LOGGER = LogManager.getLogger(ServerConnection.class);
     private static final String GAMELIST = "gamelist";
     private static final String PLAYERLIST = "playerlist";
+    private static final boolean TCP_NO_DELAY = Boolean.parseBoolean(System.getProperty("framework.net.tcpNoDelay", "true"));
+    private static final boolean KEEP_ALIVE = Boolean.parseBoolean(System.getProperty("framework.net.keepAlive", "true"));
+    private static final int SEND_BUFFER = Integer.getInteger("framework.net.sendBuffer", 0);
+    private static final boolean BATCH = Boolean.getBoolean("framework.net.batch");
+    private static final long SHUTDOWN_TIMEOUT = Long.getLong("framework.shutdown.timeout", 2000);
+    /**
+     * Returned by {@link #ping(long)} when the server didn't respond in time
+     */
+    static final long PING_NOT_ANSWERED = -1;
+    /**
+     * Returned by {@link #ping(long)} when another request was in progress
+     */
+    static final long PING_SKIPPED = -2;
     private final Socket socket;
+    private final String serverAddress;
+    private final ProtocolTrace trace = new ProtocolTrace();
     private ServerResponseReader reader;
+    private final OutputStream out;
     private PrintWriter writer;
+    private volatile ProtocolJournal journal;
+    private volatile ConnectionMonitor monitor;
+    private final ReentrantLock requestLock = new ReentrantLock();
 
     /**
      * Creates a connection to a server with the specified IP address and port.
@@ -31,10 +64,18 @@ public class ServerConnection {
      * @throws IOException Signals that an I/O exception has occurred.
      */
     public ServerConnection(String ip, int port) throws IOException {
-        socket = new Socket(ip, port);
-        reader = new ServerResponseReader(socket);
-        new Thread(reader).start();
-        writer = new PrintWriter(socket.getOutputStream());
+        serverAddress = ip + ':' + port;
+        socket = new Socket();
+        socket.setTcpNoDelay(TCP_NO_DELAY);
+        socket.setKeepAlive(KEEP_ALIVE);
+        if (SEND_BUFFER > 0) {
+            socket.setSendBufferSize(SEND_BUFFER);
+        }
+        socket.connect(new InetSocketAddress(ip, port));
+        reader = new ServerResponseReader(socket, trace);
+        reader.start("server-reader " + serverAddress);
+        out = new BufferedOutputStream(socket.getOutputStream());
+        writer = new PrintWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
     }
 
     /**
@@ -53,10 +94,52 @@ public class ServerConnection {
      * @return true, if successful
      */
     public boolean write(String line) {
-        writer.println(line);
-        writer.flush();
-        List<String> result = reader.read(1);
-        return !(result.size() == 1 && result.get(0) == null) && result.size() == 1 && result.get(0).startsWith("OK");
+        return isOk(request(1, line));
+    }
+
+    /**
+     * Writes lines to the server and reads their responses. Requests are sent one at a time, so the responses of concurrent
+     * requests are not mixed up.
+     *
+     * @param responses the amount of response lines
+     * @param lines the lines
+     * @return the response lines, fewer if the server didn't respond in time
+     */
+    private List<String> request(int responses, String... lines) {
+        requestLock.lock();
+        try {
+            reader.discardResponses();
+            send(lines);
+            return reader.read(responses);
+        } finally {
+            requestLock.unlock();
+        }
+    }
+
+    /**
+     * Records and writes lines to the server, and flushes them at once.
+     *
+     * @param lines the lines
+     */
+    private void send(String... lines) {
+        synchronized (out) {
+            for (String line : lines) {
+                record(line);
+                writer.print(line);
+                writer.print('\n');
+            }
+            writer.flush();
+        }
+    }
+
+    /**
+     * Checks if the server acknowledged a command.
+     *
+     * @param result the response to the command
+     * @return true, if the response is OK
+     */
+    private static boolean isOk(List<String> result) {
+        return result.size() == 1 && result.get(0) != null && result.get(0).startsWith("OK");
     }
 
     /**
@@ -66,9 +149,102 @@ public class ServerConnection {
      * @return the list
      */
     private List<String> get(String type) {
-        writer.println("get " + type);
-        writer.flush();
-        List<String> result = reader.read(2);
+        requestLock.lock();
+        try {
+            reader.discardResponses();
+            send("get " + type);
+            return parseList(type, readListResponse(type));
+        } finally {
+            requestLock.unlock();
+        }
+    }
+
+    /**
+     * Returns several lists. In batch mode all requests are written at once and the responses are read afterwards,
+     * otherwise the lists are requested one by one.
+     *
+     * @param types The types that need to be returned
+     * @return the lists, in the order of the types
+     */
+    public List<List<String>> getLists(String... types) {
+        List<List<String>> lists = new ArrayList<>(types.length);
+        if (!BATCH) {
+            for (String type : types) {
+                lists.add(get(type));
+            }
+            return lists;
+        }
+        String[] lines = new String[types.length];
+        for (int i = 0; i < types.length; i++) {
+            lines[i] = "get " + types[i];
+        }
+        requestLock.lock();
+        try {
+            reader.discardResponses();
+            send(lines);
+            boolean answered = true;
+            for (String type : types) {
+                List<String> result = answered ? readListResponse(type) : new ArrayList<>();
+                answered = !result.isEmpty();
+                lists.add(parseList(type, result));
+            }
+        } finally {
+            requestLock.unlock();
+        }
+        return lists;
+    }
+
+    /**
+     * Reads the response to a get request by its prefixes, so an <code>ERR</code> (a single line) doesn't shift the
+     * responses of the requests after it. Lines which belong to no response are skipped.
+     *
+     * @param type the type that was requested
+     * @return the <code>OK</code> and the list, only the <code>ERR</code>, or nothing if the server didn't respond in time
+     */
+    private List<String> readListResponse(String type) {
+        return readListResponse(type, ServerResponseReader.RESPONSE_TIMEOUT_NANOS);
+    }
+
+    /**
+     * Reads the response to a get request by its prefixes, like {@link #readListResponse(String)}, within a timeout.
+     *
+     * @param type the type that was requested
+     * @param timeoutNanos the time to wait for the whole response in nanoseconds
+     * @return the <code>OK</code> and the list, only the <code>ERR</code>, or less if the server didn't respond in time
+     */
+    private List<String> readListResponse(String type, long timeoutNanos) {
+        List<String> result = new ArrayList<>(2);
+        String listPrefix = "SVR " + type.toUpperCase() + ' ';
+        long deadline = System.nanoTime() + timeoutNanos;
+        while (true) {
+            List<String> line = reader.read(1, deadline - System.nanoTime());
+            if (line.isEmpty() || line.get(0) == null) {
+                return result;
+            }
+            String response = line.get(0);
+            if (response.startsWith("ERR")) {
+                LOGGER.warn("Server refused get {}: {}", type, response);
+                result.add(response);
+                return result;
+            } else if (response.startsWith("OK") && result.isEmpty()) {
+                result.add(response);
+            } else if (response.startsWith(listPrefix) && !result.isEmpty()) {
+                result.add(response);
+                return result;
+            } else {
+                LOGGER.trace("Skipping {} while reading {}", response, type);
+            }
+        }
+    }
+
+    /**
+     * Parses the response to a get request.
+     *
+     * @param type the type that was requested
+     * @param result the OK and the list of the response
+     * @return the list
+     */
+    private List<String> parseList(String type, List<String> result) {
         if (result.size() != 2 || result.get(1) == null) {
             return new ArrayList<>();
         }
@@ -107,6 +283,15 @@ public class ServerConnection {
         return get(PLAYERLIST);
     }
 
+    /**
+     * Returns the list of games available and the list of players currently logged in, pipelined in batch mode.
+     *
+     * @return the gamelist and the playerlist
+     */
+    public List<List<String>> getGameAndPlayerlist() {
+        return getLists(GAMELIST, PLAYERLIST);
+    }
+
     /**
      * Accepts the challenge with the specified challengenumber.
      *
@@ -128,17 +313,136 @@ public class ServerConnection {
     }
 
     /**
-     * Logs the user out and closes the connection.
+     * Sends to the server that you are playing an encoded move, writing the prebuilt command of the move.
+     *
+     * @param codec the codec of the game type
+     * @param code the code of the move
+     * @return true, if successful
+     */
+    public boolean move(MoveCodec codec, int code) {
+        requestLock.lock();
+        try {
+            reader.discardResponses();
+            synchronized (out) {
+                record(codec.getCommand(code));
+                try {
+                    out.write(codec.getCommandBytes(code));
+                    out.flush();
+                } catch (IOException e) {
+                    LOGGER.warn("IOException", e);
+                    return false;
+                }
+            }
+            return isOk(reader.read(1));
+        } finally {
+            requestLock.unlock();
+        }
+    }
+
+    /**
+     * Sends a cheap request and measures the time until its response has arrived completely. The ping never waits for
+     * another request: it is skipped while one is in progress, whose response shows the connection is alive anyway.
+     *
+     * @param timeoutNanos the time to wait for the response in nanoseconds, which delays the requests after the ping
+     * @return the round trip time in nanoseconds, {@link #PING_NOT_ANSWERED} if the server didn't respond in time, or
+     * {@link #PING_SKIPPED}
+     */
+    long ping(long timeoutNanos) {
+        if (!requestLock.tryLock()) {
+            return PING_SKIPPED;
+        }
+        try {
+            reader.discardResponses();
+            long start = System.nanoTime();
+            send("get " + GAMELIST);
+            List<String> result = readListResponse(GAMELIST, timeoutNanos);
+            return result.size() == 2 ? System.nanoTime() - start : PING_NOT_ANSWERED;
+        } finally {
+            requestLock.unlock();
+        }
+    }
+
+    /**
+     * Starts monitoring the health of this connection with heartbeats.
+     *
+     * @param onDead invoked once when the connection is declared dead
+     * @return the monitor
+     */
+    public ConnectionMonitor startMonitor(Runnable onDead) {
+        ConnectionMonitor current = monitor;
+        if (current != null) {
+            current.stop();
+        }
+        monitor = new ConnectionMonitor(this, onDead);
+        return monitor;
+    }
+
+    /**
+     * Gets the time the last line was received from the server.
+     *
+     * @return the time in nanoseconds, see {@link System#nanoTime()}
+     */
+    long getLastReceived() {
+        return reader.getLastReceived();
+    }
+
+    /**
+     * Logs the user out and closes the connection. Waits at most <code>framework.shutdown.timeout</code> milliseconds (2000
+     * by default) for the reader and dispatcher threads to stop.
      */
     public void close() {
-        writer.println("logout");
-        writer.flush();
+        ConnectionMonitor current = monitor;
+        if (current != null) {
+            current.stop();
+        }
+        send("logout");
         try {
             socket.close();
         } catch (IOException e) {
             LOGGER.warn("IOException", e);
         }
-        reader.stop();
+        if (!reader.stop(SHUTDOWN_TIMEOUT)) {
+            LOGGER.warn("Connection to {} closed, but not all of its threads stopped.", serverAddress);
+        }
+        stopJournal();
+    }
+
+    /**
+     * Starts recording every line sent and received on this connection in a journal, which can be replayed with
+     * {@link ProtocolReplay}.
+     *
+     * @param file the journal file, overwritten if it exists
+     * @throws IOException Signals that an I/O exception has occurred.
+     */
+    public void startJournal(File file) throws IOException {
+        stopJournal();
+        journal = new ProtocolJournal(file);
+        reader.setJournal(journal);
+    }
+
+    /**
+     * Stops recording the journal, if one is being recorded.
+     */
+    public void stopJournal() {
+        ProtocolJournal currentJournal = journal;
+        if (currentJournal != null) {
+            reader.setJournal(null);
+            journal = null;
+            currentJournal.close();
+        }
+    }
+
+    /**
+     * Records an outbound line in the trace and the journal.
+     *
+     * @param line the line
+     */
+    private void record(String line) {
+        trace.record(ProtocolTrace.OUTBOUND, line);
+        ProtocolJournal currentJournal = journal;
+        if (currentJournal != null) {
+            currentJournal.append(ProtocolTrace.OUTBOUND, line);
+        }
     }
 
     /**
@@ -182,12 +486,69 @@ public class ServerConnection {
         return write("forfeit");
     }
 
+    /**
+     * Gets the address of the server.
+     *
+     * @return the hostname and port of the server
+     */
+    public String getServerAddress() {
+        return serverAddress;
+    }
+
     /**
      * Checks if is connected.
      *
      * @return true, if is connected
      */
     public boolean isConnected() {
-        return socket.isConnected() && !socket.isClosed();
+        ConnectionMonitor current = monitor;
+        return socket.isConnected() && !socket.isClosed() && (current == null || !current.isDead());
+    }
+
+    /**
+     * Runs a task on the thread which notifies the game listeners of this connection, before the events which are waiting
+     * for dispatch.
+     *
+     * @param task the task
+     * @return false, if the connection has been closed and the task will not run
+     */
+    public boolean runOnDispatcher(Runnable task) {
+        return reader.execute(task);
+    }
+
+    /**
+     * Gets the amount of game events waiting for dispatch to the game listeners.
+     *
+     * @return the depth of the dispatch queue
+     */
+    public int getDispatchDepth() {
+        return reader.getDispatchQueue().getDepth();
+    }
+
+    /**
+     * Gets the largest amount of game events that waited for dispatch at once.
+     *
+     * @return the maximal depth of the dispatch queue
+     */
+    public int getMaxDispatchDepth() {
+        return reader.getDispatchQueue().getMaxDepth();
+    }
+
+    /**
+     * Gets the amount of game events dropped because the dispatch queue was full.
+     *
+     * @return the amount of dropped events
+     */
+    public long getDroppedEvents() {
+        return reader.getDispatchQueue().getDropped();
+    }
+
+    /**
+     * Writes the last lines sent and received on this connection to the log.
+     *
+     * @param reason the reason for the dump
+     */
+    public void dumpTrace(String reason) {
+        trace.dump(reason);
     }
 }
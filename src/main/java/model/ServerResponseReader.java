@@ -1,19 +1,21 @@
 package model;
 
 import controller.game.GameListener;
+import model.DispatchQueue.EventType;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import org.json.JSONException;
 import org.json.JSONObject;
 
-import java.io.BufferedReader;
 import java.io.IOException;
-import java.io.InputStreamReader;
 import java.net.Socket;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Queue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * <p>
@@ -50,7 +52,8 @@ public class ServerResponseReader implements Runnable {
     private static final String COMMENT_VARNAME = "COMMENT";
     private static final String CANCELLED_PREFIX = "CANCELLED ";
     private static final String CHALLENGETURNTIME_VARNAME = "TURNTIME";
-    private final Object stopLock = new Object();
+    private static final AtomicInteger LEAKED_THREADS = new AtomicInteger();
+    static final long RESPONSE_TIMEOUT_NANOS = Long.getLong("framework.net.responseTimeout", 5000) * 1000000L;
     /**
      * All server responses which should not be sent to listeners (Like a game has started for example, mostly this queue consists of
      * OK's and ERR's). When a line from this queue is read it is also deleted.
@@ -59,150 +62,284 @@ public class ServerResponseReader implements Runnable {
     /**
      * A boolean indicating if this thread should run
      */
-    private boolean running = true;
+    private volatile boolean running = true;
+    /**
+     * The thread reading from the server, null until {@link #start(String)} is called
+     */
+    private Thread thread;
     /**
      * All gameListeners which will be notified of events
      */
-    private ArrayList<GameListener> listeners = new ArrayList<>();
+    private final List<GameListener> listeners = new CopyOnWriteArrayList<>();
+    /**
+     * The queue through which events are passed to the listeners, null when the listeners are notified by the parsing
+     * thread.
+     */
+    private DispatchQueue dispatchQueue;
+    /**
+     * The framer which splits the input stream in lines.
+     */
+    private LineFramer framer;
+    /**
+     * The last lines of the connection, dumped when an error occurs.
+     */
+    private final ProtocolTrace trace;
     /**
-     * A reader to read the input stream.
+     * The time the last line was received, in nanoseconds.
      */
-    private BufferedReader reader;
+    private volatile long lastReceived = System.nanoTime();
+    /**
+     * The journal in which every received line is recorded, null when not recording.
+     */
+    private volatile ProtocolJournal journal;
 
     /**
      * @param socket The socket on which's inputStream to read.
+     * @param trace  The trace in which every received line is recorded.
      *
      * @throws IOException
      */
-    public ServerResponseReader(Socket socket) throws IOException {
-        this.reader = new BufferedReader(new InputStreamReader(socket.getInputStream()));
+    public ServerResponseReader(Socket socket, ProtocolTrace trace) throws IOException {
+        this.framer = new LineFramer(socket.getInputStream());
+        this.trace = trace;
+        this.dispatchQueue = new DispatchQueue(listeners, "server-dispatch " + socket.getRemoteSocketAddress());
+    }
+
+    /**
+     * Creates a reader without a socket, lines can only be fed to it through {@link #parse(CharSequence)}. Used to replay
+     * journals.
+     *
+     * @param trace The trace in which errors are recorded.
+     */
+    ServerResponseReader(ProtocolTrace trace) {
+        this.trace = trace;
+    }
+
+    /**
+     * Starts reading the socket in a new daemon thread.
+     *
+     * @param name the name of the thread
+     */
+    void start(String name) {
+        thread = new Thread(this, name);
+        thread.setDaemon(true);
+        thread.start();
     }
 
     /**
      * This method can be started and will read input of the socket. It has to be started in a new Thread, because it will run till
-     * stop is called.
+     * stop is called or the server closes the connection.
      */
     @Override
     public void run() {
         while (running) {
             try {
-                String in = reader.readLine();
+                CharSequence in = framer.nextLine();
+                if (in == null) {
+                    LOGGER.trace("Server closed the connection.");
+                    break;
+                }
+                lastReceived = System.nanoTime();
+                trace.record(ProtocolTrace.INBOUND, in);
+                ProtocolJournal currentJournal = journal;
+                if (currentJournal != null) {
+                    currentJournal.append(ProtocolTrace.INBOUND, in);
+                }
 
                 if (!parse(in)) {
                     synchronized (responseBuffer) {
-                        if (in == null) {
-                            continue;
-                        }
-
-                        if (in.toLowerCase().startsWith("ok") || in.toLowerCase().startsWith("err") || in.toLowerCase().startsWith("svr gamelist") || in.toLowerCase().startsWith("svr playerlist")) {
-                            responseBuffer.add(in);
+                        if (startsWithIgnoreCase(in, 0, "ok") || startsWithIgnoreCase(in, 0, "err") || startsWithIgnoreCase(in, 0, "svr gamelist") || startsWithIgnoreCase(in, 0, "svr playerlist")) {
+                            responseBuffer.add(in.toString());
                             responseBuffer.notifyAll();
                         }
                     }
                 }
-            } catch (IOException | JSONException e) {
+            } catch (JSONException e) {
                 LOGGER.error("Error when receiving data.", e);
+                trace.dump("Error when receiving data");
+            } catch (IOException e) {
+                if (running) {
+                    LOGGER.error("Error when receiving data.", e);
+                    trace.dump("Error when receiving data");
+                }
+                break;
             }
         }
-        synchronized (stopLock) {
-            stopLock.notifyAll();
+        running = false;
+        if (dispatchQueue != null) {
+            dispatchQueue.close();
+        }
+        synchronized (responseBuffer) {
+            responseBuffer.notifyAll();
         }
     }
 
 
     /**
-     * Parse a String read from the inputStream
+     * Parse a line read from the inputStream. Only the JSON of game lines is materialized as String.
      *
-     * @param s The string to parse.
+     * @param line The line to parse.
      *
      * @return true if a Line containing information for listeners has been found, false otherwise
      */
-    private boolean parse(String s) {
-        if (s == null) {
+    boolean parse(CharSequence line) {
+        if (line == null) {
             return false;
         }
 
-        if ("Strategic Game Server [Version 1.0]".equals(s) || s.startsWith("(C) Copyright 2009") || s.startsWith("SVR MESSAGE")) {
+        if (contentEquals(line, "Strategic Game Server [Version 1.0]") || startsWith(line, 0, "(C) Copyright 2009") || startsWith(line, 0, "SVR MESSAGE")) {
             return true;
         }
 
-        s = s.trim();
-        LOGGER.trace(s);
+        int start = 0;
+        int end = line.length();
+        while (start < end && line.charAt(start) <= ' ') {
+            start++;
+        }
+        while (end > start && line.charAt(end - 1) <= ' ') {
+            end--;
+        }
 
-        if (!s.startsWith(GAME_PREFIX)) {
+        if (!startsWith(line, start, GAME_PREFIX)) {
             return false;
         }
-        s = s.substring(GAME_PREFIX.length());
+        int body = start + GAME_PREFIX.length();
 
-        if (s.startsWith(MATCH_PREFIX)) {
-            JSONObject jsonObject = new JSONObject(s.substring(MATCH_PREFIX.length()));
+        if (startsWith(line, body, MATCH_PREFIX)) {
+            JSONObject jsonObject = json(line, body + MATCH_PREFIX.length(), end);
 
             String playerMove = jsonObject.getString(PLAYERTOMOVE_VARNAME);
             String gameType = jsonObject.getString(GAMETYPE_VARNAME);
             String opponent = jsonObject.getString(OPPONENT_VARNAME);
 
-            for (GameListener gameListener : listeners) {
-                gameListener.match(playerMove, gameType, opponent);
-            }
-        } else if (s.startsWith(YOURTURN_PREFIX)) {
-            JSONObject jsonObject = new JSONObject(s.substring(YOURTURN_PREFIX.length()));
-
-            for (GameListener gameListener : listeners) {
-                try {
-                    gameListener.yourTurn(jsonObject.getString(TURNMESSAGE_VARNAME));
-                } catch (JSONException e) {
-                    LOGGER.error("JSON error when getting turntime", e);
-                    gameListener.yourTurn("");
-                }
-            }
-        } else if (s.startsWith(MOVE_PREFIX)) {
-            JSONObject jsonObject = new JSONObject(s.substring(MOVE_PREFIX.length()));
+            dispatch(EventType.MATCH, playerMove, gameType, opponent, null);
+        } else if (startsWith(line, body, YOURTURN_PREFIX)) {
+            JSONObject jsonObject = json(line, body + YOURTURN_PREFIX.length(), end);
 
-            for (GameListener gameListener : listeners) {
-                gameListener.move(jsonObject.getString(PLAYER_VARNAME), jsonObject.getString(MOVE_VARNAME), jsonObject.getString(DETAILS_VARNAME));
+            String turnMessage;
+            try {
+                turnMessage = jsonObject.getString(TURNMESSAGE_VARNAME);
+            } catch (JSONException e) {
+                LOGGER.error("JSON error when getting turntime", e);
+                turnMessage = "";
             }
-        } else if (s.startsWith(CHALLENGE_PREFIX)) {
-            if (s.substring(CHALLENGE_PREFIX.length()).startsWith(CANCELLED_PREFIX)) {
-                JSONObject jsonObject = new JSONObject(s.substring(CHALLENGE_PREFIX.length() + CANCELLED_PREFIX.length()));
+            dispatch(EventType.YOURTURN, turnMessage, null, null, null);
+        } else if (startsWith(line, body, MOVE_PREFIX)) {
+            JSONObject jsonObject = json(line, body + MOVE_PREFIX.length(), end);
 
-                for (GameListener gameListener : listeners) {
-                    gameListener.challengeCancelled(jsonObject.getString(CHALLENGENUMBER_VARNAME));
-                }
+            dispatch(EventType.MOVE, jsonObject.getString(PLAYER_VARNAME), jsonObject.getString(MOVE_VARNAME), jsonObject.getString(DETAILS_VARNAME), null);
+        } else if (startsWith(line, body, CHALLENGE_PREFIX)) {
+            if (startsWith(line, body + CHALLENGE_PREFIX.length(), CANCELLED_PREFIX)) {
+                JSONObject jsonObject = json(line, body + CHALLENGE_PREFIX.length() + CANCELLED_PREFIX.length(), end);
+
+                dispatch(EventType.CHALLENGE_CANCELLED, jsonObject.getString(CHALLENGENUMBER_VARNAME), null, null, null);
 
                 return true;
             }
-            JSONObject jsonObject = new JSONObject(s.substring(CHALLENGE_PREFIX.length()));
+            JSONObject jsonObject = json(line, body + CHALLENGE_PREFIX.length(), end);
 
             String challenger = jsonObject.getString(CHALLENGER_VARNAME);
             String challengeNumber = jsonObject.getString(CHALLENGENUMBER_VARNAME);
             String challengeGameType = jsonObject.getString(GAMETYPE_VARNAME);
             String challengeTurnTime = jsonObject.getString(CHALLENGETURNTIME_VARNAME);
 
-            for (GameListener gameListener : listeners) {
-                gameListener.challenge(challenger, challengeNumber, challengeGameType, challengeTurnTime);
-            }
-        } else if (s.startsWith(WIN_PREFIX)) {
-            JSONObject jsonObject = new JSONObject(s.substring(WIN_PREFIX.length()));
+            dispatch(EventType.CHALLENGE, challenger, challengeNumber, challengeGameType, challengeTurnTime);
+        } else if (startsWith(line, body, WIN_PREFIX)) {
+            JSONObject jsonObject = json(line, body + WIN_PREFIX.length(), end);
 
-            for (GameListener gameListener : listeners) {
-                gameListener.win(jsonObject.getString(PLAYERONESCORE_VARNAME), jsonObject.getString(PLAYERTWOSCORE_VARNAME), jsonObject.getString(COMMENT_VARNAME));
-            }
-        } else if (s.startsWith(LOSS_PREFIX)) {
-            JSONObject jsonObject = new JSONObject(s.substring(LOSS_PREFIX.length()));
+            dispatch(EventType.WIN, jsonObject.getString(PLAYERONESCORE_VARNAME), jsonObject.getString(PLAYERTWOSCORE_VARNAME), jsonObject.getString(COMMENT_VARNAME), null);
+        } else if (startsWith(line, body, LOSS_PREFIX)) {
+            JSONObject jsonObject = json(line, body + LOSS_PREFIX.length(), end);
+
+            dispatch(EventType.LOSS, jsonObject.getString(PLAYERONESCORE_VARNAME), jsonObject.getString(PLAYERTWOSCORE_VARNAME), jsonObject.getString(COMMENT_VARNAME), null);
+        } else if (startsWith(line, body, DRAW_PREFIX)) {
+            JSONObject jsonObject = json(line, body + DRAW_PREFIX.length(), end);
+
+            dispatch(EventType.DRAW, jsonObject.getString(PLAYERONESCORE_VARNAME), jsonObject.getString(PLAYERTWOSCORE_VARNAME), jsonObject.getString(COMMENT_VARNAME), null);
+        }
+        return true;
+    }
+
+    /**
+     * Passes an event to the dispatch queue, or notifies the listeners directly when there is no queue.
+     *
+     * @param type the type of the event
+     * @param first the first argument of the event
+     * @param second the second argument of the event
+     * @param third the third argument of the event
+     * @param fourth the fourth argument of the event
+     */
+    private void dispatch(EventType type, String first, String second, String third, String fourth) {
+        if (dispatchQueue != null) {
+            dispatchQueue.offer(type, first, second, third, fourth);
+        } else {
+            DispatchQueue.deliver(listeners, type, first, second, third, fourth);
+        }
+    }
 
-            for (GameListener gameListener : listeners) {
-                gameListener.loss(jsonObject.getString(PLAYERONESCORE_VARNAME), jsonObject.getString(PLAYERTWOSCORE_VARNAME), jsonObject.getString(COMMENT_VARNAME));
+    /**
+     * Checks if a line starts with a prefix at an offset.
+     *
+     * @param line the line
+     * @param offset the offset
+     * @param prefix the prefix
+     * @return true, if the line starts with the prefix
+     */
+    private static boolean startsWith(CharSequence line, int offset, String prefix) {
+        if (line.length() - offset < prefix.length()) {
+            return false;
+        }
+        for (int i = 0; i < prefix.length(); i++) {
+            if (line.charAt(offset + i) != prefix.charAt(i)) {
+                return false;
             }
-        } else if (s.startsWith(DRAW_PREFIX)) {
-            JSONObject jsonObject = new JSONObject(s.substring(DRAW_PREFIX.length()));
+        }
+        return true;
+    }
 
-            for (GameListener gameListener : listeners) {
-                gameListener.draw(jsonObject.getString(PLAYERONESCORE_VARNAME), jsonObject.getString(PLAYERTWOSCORE_VARNAME), jsonObject.getString(COMMENT_VARNAME));
+    /**
+     * Checks if a line starts with a lower case prefix at an offset, ignoring case.
+     *
+     * @param line the line
+     * @param offset the offset
+     * @param prefix the prefix, in lower case
+     * @return true, if the line starts with the prefix
+     */
+    private static boolean startsWithIgnoreCase(CharSequence line, int offset, String prefix) {
+        if (line.length() - offset < prefix.length()) {
+            return false;
+        }
+        for (int i = 0; i < prefix.length(); i++) {
+            if (Character.toLowerCase(line.charAt(offset + i)) != prefix.charAt(i)) {
+                return false;
             }
         }
         return true;
     }
 
+    /**
+     * Parses the JSON object in a part of a line.
+     *
+     * @param line the line
+     * @param start the start of the JSON
+     * @param end the end of the JSON
+     * @return the JSON object
+     */
+    private static JSONObject json(CharSequence line, int start, int end) {
+        return new JSONObject(line.subSequence(start, end).toString());
+    }
+
+    /**
+     * Checks if a line equals a String.
+     *
+     * @param line the line
+     * @param content the String
+     * @return true, if the line has the same characters
+     */
+    private static boolean contentEquals(CharSequence line, String content) {
+        return line.length() == content.length() && startsWith(line, 0, content);
+    }
+
     /**
      * Add a new gamelistener
      *
@@ -213,38 +350,152 @@ public class ServerResponseReader implements Runnable {
     }
 
     /**
-     * Stop the thread reading from the server
+     * Runs a task on the thread which notifies the listeners, so it doesn't race with them.
+     *
+     * @param task the task
+     * @return false, if the reader has been stopped and the task will not run
      */
-    public void stop() {
-        synchronized (stopLock) {
-            running = false;
-            try {
-                stopLock.wait();
-            } catch (InterruptedException e) {
-                LOGGER.warn("Interrupt exception");
+    boolean execute(Runnable task) {
+        if (dispatchQueue != null) {
+            return dispatchQueue.execute(task);
+        }
+        task.run();
+        return true;
+    }
+
+    /**
+     * Gets the queue through which events are passed to the listeners.
+     *
+     * @return the dispatch queue, or null when the listeners are notified by the parsing thread
+     */
+    DispatchQueue getDispatchQueue() {
+        return dispatchQueue;
+    }
+
+    /**
+     * Sets the journal in which every received line is recorded.
+     *
+     * @param journal the journal, or null to stop recording
+     */
+    void setJournal(ProtocolJournal journal) {
+        this.journal = journal;
+    }
+
+    /**
+     * Stop the thread reading from the server and the thread dispatching its events. The socket must be closed first, so
+     * the reader is not blocked on it. Waits at most the timeout for both threads; threads which are still alive after that
+     * (for example a listener which doesn't return) are reported as leaked.
+     *
+     * @param timeoutMillis the maximal time to wait in milliseconds
+     * @return true, if both threads have stopped
+     */
+    public boolean stop(long timeoutMillis) {
+        running = false;
+        if (dispatchQueue != null) {
+            dispatchQueue.close();
+        }
+        long deadline = System.nanoTime() + timeoutMillis * 1000000L;
+        boolean stopped = join(thread, deadline);
+        if (dispatchQueue != null) {
+            stopped &= join(dispatchQueue.getDispatcher(), deadline);
+        }
+        return stopped;
+    }
+
+    /**
+     * Waits for a thread to stop, and reports it when it doesn't stop in time.
+     *
+     * @param thread the thread, null if it was never started
+     * @param deadline the deadline, in nanoseconds
+     * @return true, if the thread has stopped or is the current thread, which stops after returning
+     */
+    private static boolean join(Thread thread, long deadline) {
+        if (thread == null || thread == Thread.currentThread()) {
+            return true;
+        }
+        try {
+            thread.join(Math.max(1, (deadline - System.nanoTime()) / 1000000L));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        if (thread.isAlive()) {
+            int leaked = LEAKED_THREADS.incrementAndGet();
+            LOGGER.warn("Thread {} did not stop in time, {} threads leaked. Stack: {}", thread.getName(), leaked,
+                    Arrays.toString(thread.getStackTrace()));
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * Gets the amount of reader and dispatcher threads which did not stop in time since the start of the process.
+     *
+     * @return the amount of leaked threads
+     */
+    public static int getLeakedThreads() {
+        return LEAKED_THREADS.get();
+    }
+
+    /**
+     * Removes the responses nobody waited for, for example responses which arrived after their request timed out.
+     */
+    void discardResponses() {
+        synchronized (responseBuffer) {
+            if (!responseBuffer.isEmpty()) {
+                LOGGER.warn("Discarding {} unexpected responses: {}", responseBuffer.size(), responseBuffer);
+                responseBuffer.clear();
             }
         }
     }
 
+    /**
+     * Gets the time the last line was received.
+     *
+     * @return the time in nanoseconds, see {@link System#nanoTime()}
+     */
+    long getLastReceived() {
+        return lastReceived;
+    }
+
     /**
      * Read i lines from the buffer (Server responses which are not sent to listeners). This method blocks until i lines have been
-     * gathered.
+     * gathered, or until no line arrived within <code>framework.net.responseTimeout</code> milliseconds (5000 by default).
      *
      * @param i The amount of lines to read
      *
      * @return The lines which have been read
      */
     public List<String> read(int i) {
+        return read(i, RESPONSE_TIMEOUT_NANOS);
+    }
+
+    /**
+     * Read i lines from the buffer, like {@link #read(int)}, but gives up when no line arrived within a timeout.
+     *
+     * @param i The amount of lines to read
+     * @param timeoutNanos The time to wait for a line in nanoseconds
+     *
+     * @return The lines which have been read
+     */
+    List<String> read(int i, long timeoutNanos) {
         List<String> result = new ArrayList<>(i);
         int tries = 0;
+        long deadline = System.nanoTime() + timeoutNanos;
         for (int j = 0; j < i; j++) {
             synchronized (responseBuffer) {
                 while (responseBuffer.isEmpty()) {
                     try {
-                        responseBuffer.wait(500);
+                        responseBuffer.wait(Math.max(1, Math.min(500, (deadline - System.nanoTime()) / 1000000L)));
                         if (!result.isEmpty() && responseBuffer.isEmpty() && ++tries > 3) {
                             return result;
                         }
+                        if (responseBuffer.isEmpty() && !running) {
+                            return result;
+                        }
+                        if (responseBuffer.isEmpty() && System.nanoTime() - deadline > 0) {
+                            LOGGER.warn("No response from server within {} ms.", timeoutNanos / 1000000L);
+                            return result;
+                        }
                     } catch (InterruptedException e) {
                         LOGGER.warn("Interrupt exception");
                     }
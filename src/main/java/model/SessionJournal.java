@@ -0,0 +1,308 @@
+package model;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * <p>
+ * A small append-only snapshot of the active match of one client on one server, so a client which crashed can rebuild
+ * its game module and continue the match after it has logged in again.
+ * <p>
+ * Snapshots are written to the directory of <code>framework.sessions</code>; without that property nothing is written.
+ * The file holds one line per record, with tab separated fields:
+ * <ul>
+ * <li><code>MATCH startedAt gameType playerToMove opponent side turnTime</code>, which truncates the file</li>
+ * <li><code>MOVE player move</code>, for every move applied to the game module</li>
+ * <li><code>TURN turnMessage</code>, when it became the turn of the client</li>
+ * </ul>
+ * Every record is flushed when it is written. The file is deleted when the match has ended, so an existing file is a match
+ * which may be resumed, see {@link #getResumableMatch()}.
+ */
+public class SessionJournal {
+    private static final Logger LOGGER = LogManager.getLogger(SessionJournal.class);
+    private static final String MATCH = "MATCH";
+    private static final String MOVE = "MOVE";
+    private static final String TURN = "TURN";
+    private static final char SEPARATOR = '\t';
+    private final File file;
+    private Writer writer;
+
+    private SessionJournal(File file) {
+        this.file = file;
+    }
+
+    /**
+     * Gets the journal of a client on a server.
+     *
+     * @param clientName the client name
+     * @param serverAddress the address of the server, see {@link ServerConnection#getServerAddress()}
+     * @return the journal, or null if <code>framework.sessions</code> is not set
+     */
+    public static SessionJournal forClient(String clientName, String serverAddress) {
+        String directory = System.getProperty("framework.sessions");
+        if (directory == null) {
+            return null;
+        }
+        String name = (clientName + '-' + serverAddress).replaceAll("[^A-Za-z0-9.-]", "_");
+        return new SessionJournal(new File(directory, name + ".session"));
+    }
+
+    /**
+     * Starts the snapshot of a new match, replacing the snapshot of the previous match.
+     *
+     * @param gameType the game type
+     * @param playerToMove the player who begins
+     * @param opponent the opponent as given by the server
+     * @param side the side the client plays
+     * @param turnTime the turn time in milliseconds
+     */
+    public synchronized void startMatch(String gameType, String playerToMove, String opponent, String side, int turnTime) {
+        close();
+        try {
+            //noinspection ResultOfMethodCallIgnored
+            file.getParentFile().mkdirs();
+            writer = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(file, false), StandardCharsets.UTF_8));
+        } catch (IOException e) {
+            LOGGER.error("Could not create session snapshot {}.", file, e);
+            return;
+        }
+        append(MATCH, Long.toString(System.currentTimeMillis()), gameType, playerToMove, opponent, side,
+                Integer.toString(turnTime));
+    }
+
+    /**
+     * Records a move applied to the game module.
+     *
+     * @param player the player
+     * @param move the move
+     */
+    public synchronized void move(String player, String move) {
+        append(MOVE, player, move);
+    }
+
+    /**
+     * Records that it became the turn of the client.
+     *
+     * @param turnMessage the turn message
+     */
+    public synchronized void turn(String turnMessage) {
+        append(TURN, turnMessage);
+    }
+
+    /**
+     * Ends the match and deletes its snapshot.
+     */
+    public synchronized void endMatch() {
+        close();
+        if (file.exists() && !file.delete()) {
+            LOGGER.warn("Could not delete session snapshot {}.", file);
+        }
+    }
+
+    /**
+     * Reopens the snapshot of a resumed match, so the next records are appended to it.
+     */
+    public synchronized void reopen() {
+        close();
+        try {
+            writer = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(file, true), StandardCharsets.UTF_8));
+        } catch (IOException e) {
+            LOGGER.error("Could not reopen session snapshot {}.", file, e);
+        }
+    }
+
+    /**
+     * Reads the snapshot of an unfinished match. A match can only be resumed while its last turn can still be answered,
+     * so the snapshot must have been written within the turn time of the match. A match whose turn time is unknown is
+     * never resumed.
+     *
+     * @return the match, or null if there is none or it is too old
+     */
+    public synchronized Snapshot getResumableMatch() {
+        if (writer != null || !file.isFile()) {
+            return null;
+        }
+        Snapshot snapshot;
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(new FileInputStream(file), StandardCharsets.UTF_8))) {
+            snapshot = read(reader);
+        } catch (IOException | RuntimeException e) {
+            LOGGER.warn("Could not read session snapshot {}.", file, e);
+            snapshot = null;
+        }
+        long age = System.currentTimeMillis() - file.lastModified();
+        if (snapshot == null || age > snapshot.getTurnTime()) {
+            LOGGER.info("Discarding session snapshot {}, written {} ms ago.", file, age);
+            endMatch();
+            return null;
+        }
+        return snapshot;
+    }
+
+    /**
+     * Closes the snapshot, keeping the file.
+     */
+    public synchronized void close() {
+        if (writer == null) {
+            return;
+        }
+        try {
+            writer.close();
+        } catch (IOException e) {
+            LOGGER.warn("Error closing session snapshot {}.", file, e);
+        }
+        writer = null;
+    }
+
+    private void append(String type, String... fields) {
+        if (writer == null) {
+            return;
+        }
+        StringBuilder builder = new StringBuilder(type);
+        for (String field : fields) {
+            builder.append(SEPARATOR);
+            if (field != null) {
+                for (int i = 0; i < field.length(); i++) {
+                    char c = field.charAt(i);
+                    builder.append(c == SEPARATOR || c == '\n' || c == '\r' ? ' ' : c);
+                }
+            }
+        }
+        builder.append('\n');
+        try {
+            writer.write(builder.toString());
+            writer.flush();
+        } catch (IOException e) {
+            LOGGER.error("Could not write session snapshot {}, it is discarded.", file, e);
+            endMatch();
+        }
+    }
+
+    private static Snapshot read(BufferedReader reader) throws IOException {
+        Snapshot snapshot = null;
+        String line;
+        while ((line = reader.readLine()) != null) {
+            String[] fields = line.split(String.valueOf(SEPARATOR), -1);
+            if (fields[0].equals(MATCH) && fields.length >= 7) {
+                snapshot = new Snapshot(Long.parseLong(fields[1]), fields[2], fields[3], fields[4], fields[5],
+                        Integer.parseInt(fields[6]));
+            } else if (snapshot == null) {
+                return null;
+            } else if (fields[0].equals(MOVE) && fields.length >= 3) {
+                snapshot.moves.add(new String[]{fields[1], fields[2]});
+                snapshot.turnMessage = null;
+            } else if (fields[0].equals(TURN) && fields.length >= 2) {
+                snapshot.turnMessage = fields[1];
+            }
+        }
+        return snapshot;
+    }
+
+    /**
+     * An unfinished match read from a snapshot.
+     */
+    public static class Snapshot {
+        private final long startedAt;
+        private final String gameType;
+        private final String playerToMove;
+        private final String opponent;
+        private final String side;
+        private final int turnTime;
+        private final List<String[]> moves = new ArrayList<>();
+        private String turnMessage;
+
+        Snapshot(long startedAt, String gameType, String playerToMove, String opponent, String side, int turnTime) {
+            this.startedAt = startedAt;
+            this.gameType = gameType;
+            this.playerToMove = playerToMove;
+            this.opponent = opponent;
+            this.side = side;
+            this.turnTime = turnTime;
+        }
+
+        /**
+         * Gets the time the match started.
+         *
+         * @return the start time in milliseconds since the epoch
+         */
+        public long getStartedAt() {
+            return startedAt;
+        }
+
+        /**
+         * Gets the game type.
+         *
+         * @return the game type
+         */
+        public String getGameType() {
+            return gameType;
+        }
+
+        /**
+         * Gets the player who began the match.
+         *
+         * @return the player to move at the start of the match
+         */
+        public String getPlayerToMove() {
+            return playerToMove;
+        }
+
+        /**
+         * Gets the opponent as given by the server.
+         *
+         * @return the opponent
+         */
+        public String getOpponent() {
+            return opponent;
+        }
+
+        /**
+         * Gets the side the client plays.
+         *
+         * @return the side
+         */
+        public String getSide() {
+            return side;
+        }
+
+        /**
+         * Gets the turn time.
+         *
+         * @return the turn time in milliseconds
+         */
+        public int getTurnTime() {
+            return turnTime;
+        }
+
+        /**
+         * Gets the moves applied to the game module, in order.
+         *
+         * @return the moves as pairs of player and move
+         */
+        public List<String[]> getMoves() {
+            return Collections.unmodifiableList(moves);
+        }
+
+        /**
+         * Gets the turn message, if it was the turn of the client when the snapshot was written.
+         *
+         * @return the turn message, or null if it was the turn of the opponent
+         */
+        public String getTurnMessage() {
+            return turnMessage;
+        }
+    }
+}
@@ -0,0 +1,246 @@
+package util;
+
+/**
+ * <p>
+ * Board operations on <code>long</code> bitboards, for boards of up to 64 squares (for example 3x3 or 8x8).
+ * <p>
+ * Square <code>row * width + column</code> is bit <code>row * width + column</code> of the board, so a position is one
+ * <code>long</code> per piece. The masks needed to shift a board in any of the eight directions without wrapping around
+ * the edges are computed once per board size, so move generation and scoring in <code>getAIMove()</code> don't allocate.
+ * Instances are immutable and can be shared between threads.
+ */
+public class Bitboard {
+    /**
+     * The eight directions, as index for {@link #shift(long, int)}
+     */
+    public static final int NORTH = 0, NORTH_EAST = 1, EAST = 2, SOUTH_EAST = 3, SOUTH = 4, SOUTH_WEST = 5, WEST = 6,
+            NORTH_WEST = 7;
+    private static final int DIRECTIONS = 8;
+    private final int width;
+    private final int height;
+    private final long full;
+    private final long notFirstColumn;
+    private final long notLastColumn;
+    private final long[] neighbours;
+
+    /**
+     * Instantiates a new bitboard geometry.
+     *
+     * @param width the amount of columns
+     * @param height the amount of rows
+     * @throws IllegalArgumentException if the board has more than 64 squares
+     */
+    public Bitboard(int width, int height) {
+        if (width < 1 || height < 1 || width * height > Long.SIZE) {
+            throw new IllegalArgumentException("Board of " + width + "x" + height + " does not fit in a long");
+        }
+        this.width = width;
+        this.height = height;
+        this.full = width * height == Long.SIZE ? -1L : (1L << width * height) - 1;
+        long firstColumn = 0;
+        for (int row = 0; row < height; row++) {
+            firstColumn |= 1L << row * width;
+        }
+        this.notFirstColumn = full & ~firstColumn;
+        this.notLastColumn = full & ~(firstColumn << width - 1);
+        this.neighbours = new long[width * height];
+        for (int square = 0; square < neighbours.length; square++) {
+            long bit = 1L << square;
+            for (int direction = 0; direction < DIRECTIONS; direction++) {
+                neighbours[square] |= shift(bit, direction);
+            }
+        }
+    }
+
+    /**
+     * Gets the amount of pieces on a board.
+     *
+     * @param board the board
+     * @return the amount of set squares
+     */
+    public static int count(long board) {
+        return Long.bitCount(board);
+    }
+
+    /**
+     * Gets the lowest square of a board, to iterate over it together with {@link #withoutFirst(long)}.
+     *
+     * @param board the board, not empty
+     * @return the square
+     */
+    public static int firstSquare(long board) {
+        return Long.numberOfTrailingZeros(board);
+    }
+
+    /**
+     * Removes the lowest square of a board.
+     *
+     * @param board the board
+     * @return the board without its lowest square
+     */
+    public static long withoutFirst(long board) {
+        return board & board - 1;
+    }
+
+    /**
+     * Gets the width.
+     *
+     * @return the amount of columns
+     */
+    public int getWidth() {
+        return width;
+    }
+
+    /**
+     * Gets the height.
+     *
+     * @return the amount of rows
+     */
+    public int getHeight() {
+        return height;
+    }
+
+    /**
+     * Gets the amount of squares.
+     *
+     * @return the amount of squares
+     */
+    public int getSquares() {
+        return width * height;
+    }
+
+    /**
+     * Gets the board with all squares set.
+     *
+     * @return the full board
+     */
+    public long getFull() {
+        return full;
+    }
+
+    /**
+     * Gets the square of a row and column.
+     *
+     * @param row the row
+     * @param column the column
+     * @return the square
+     */
+    public int square(int row, int column) {
+        return row * width + column;
+    }
+
+    /**
+     * Gets the squares next to a square, computed once per board size.
+     *
+     * @param square the square
+     * @return the neighbouring squares
+     */
+    public long getNeighbours(int square) {
+        return neighbours[square];
+    }
+
+    /**
+     * Gets the empty squares.
+     *
+     * @param occupied the occupied squares
+     * @return the empty squares
+     */
+    public long empty(long occupied) {
+        return full & ~occupied;
+    }
+
+    /**
+     * Shifts all pieces one square in a direction, dropping the pieces which leave the board.
+     *
+     * @param board the board
+     * @param direction {@link #NORTH} to {@link #NORTH_WEST}
+     * @return the shifted board
+     */
+    public long shift(long board, int direction) {
+        switch (direction) {
+            case NORTH:
+                return board >>> width;
+            case NORTH_EAST:
+                return (board & notLastColumn) >>> width - 1;
+            case EAST:
+                return (board & notLastColumn) << 1;
+            case SOUTH_EAST:
+                return (board & notLastColumn) << width + 1 & full;
+            case SOUTH:
+                return board << width & full;
+            case SOUTH_WEST:
+                return (board & notFirstColumn) << width - 1 & full;
+            case WEST:
+                return (board & notFirstColumn) >>> 1;
+            case NORTH_WEST:
+                return (board & notFirstColumn) >>> width + 1;
+            default:
+                throw new IllegalArgumentException("Unknown direction " + direction);
+        }
+    }
+
+    /**
+     * Checks if a board has a line of pieces in any direction, for games like tic-tac-toe and connect four.
+     *
+     * @param board the board
+     * @param length the length of the line
+     * @return true, if the board has a line of at least that length
+     */
+    public boolean hasLine(long board, int length) {
+        for (int direction = EAST; direction <= SOUTH_WEST; direction++) {
+            long line = board;
+            for (int i = 1; i < length && line != 0; i++) {
+                line &= shift(line, direction);
+            }
+            if (line != 0) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Gets the legal moves of a player in reversi: the empty squares which enclose a line of opponent pieces.
+     *
+     * @param own the pieces of the player to move
+     * @param opponent the pieces of the opponent
+     * @return the legal moves
+     */
+    public long reversiMoves(long own, long opponent) {
+        long empty = empty(own | opponent);
+        long moves = 0;
+        for (int direction = 0; direction < DIRECTIONS; direction++) {
+            long candidates = shift(own, direction) & opponent;
+            while (candidates != 0) {
+                long next = shift(candidates, direction);
+                moves |= next & empty;
+                candidates = next & opponent;
+            }
+        }
+        return moves;
+    }
+
+    /**
+     * Gets the opponent pieces which a reversi move flips.
+     *
+     * @param own the pieces of the player to move
+     * @param opponent the pieces of the opponent
+     * @param square the square of the move
+     * @return the flipped pieces, empty if the move is not legal
+     */
+    public long reversiFlips(long own, long opponent, int square) {
+        long flips = 0;
+        for (int direction = 0; direction < DIRECTIONS; direction++) {
+            long line = 0;
+            long next = shift(1L << square, direction);
+            while ((next & opponent) != 0) {
+                line |= next;
+                next = shift(next, direction);
+            }
+            if ((next & own) != 0) {
+                flips |= line;
+            }
+        }
+        return flips;
+    }
+}
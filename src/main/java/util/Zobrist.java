@@ -0,0 +1,98 @@
+package util;
+
+import java.util.SplittableRandom;
+
+/**
+ * <p>
+ * Zobrist hashing of positions stored as {@link Bitboard}s, for transposition tables and the position cache.
+ * <p>
+ * Every piece on every square has a random key, and the hash of a position is the xor of the keys of its pieces. A move
+ * updates the hash with one xor per changed square instead of hashing the whole board. The keys are generated from a
+ * fixed seed, so hashes are the same in every run and can be stored in files.
+ */
+public class Zobrist {
+    private static final long DEFAULT_SEED = 0x5A0B815FL;
+    private final long[][] keys;
+    private final long sideToMove;
+
+    /**
+     * Instantiates a new Zobrist hash with the default seed.
+     *
+     * @param pieces the amount of piece types
+     * @param squares the amount of squares
+     */
+    public Zobrist(int pieces, int squares) {
+        this(pieces, squares, DEFAULT_SEED);
+    }
+
+    /**
+     * Instantiates a new Zobrist hash.
+     *
+     * @param pieces the amount of piece types
+     * @param squares the amount of squares
+     * @param seed the seed of the keys
+     */
+    public Zobrist(int pieces, int squares, long seed) {
+        SplittableRandom random = new SplittableRandom(seed);
+        keys = new long[pieces][squares];
+        for (long[] pieceKeys : keys) {
+            for (int square = 0; square < squares; square++) {
+                pieceKeys[square] = random.nextLong();
+            }
+        }
+        sideToMove = random.nextLong();
+    }
+
+    /**
+     * Hashes a position.
+     *
+     * @param boards the bitboard of each piece type
+     * @return the hash
+     */
+    public long hash(long... boards) {
+        long hash = 0;
+        for (int piece = 0; piece < boards.length; piece++) {
+            for (long board = boards[piece]; board != 0; board = Bitboard.withoutFirst(board)) {
+                hash ^= keys[piece][Bitboard.firstSquare(board)];
+            }
+        }
+        return hash;
+    }
+
+    /**
+     * Adds or removes a piece.
+     *
+     * @param hash the hash
+     * @param piece the piece type
+     * @param square the square
+     * @return the updated hash
+     */
+    public long toggle(long hash, int piece, int square) {
+        return hash ^ keys[piece][square];
+    }
+
+    /**
+     * Adds or removes a piece on several squares, for example the pieces flipped by a reversi move.
+     *
+     * @param hash the hash
+     * @param piece the piece type
+     * @param squares the squares
+     * @return the updated hash
+     */
+    public long toggleAll(long hash, int piece, long squares) {
+        for (; squares != 0; squares = Bitboard.withoutFirst(squares)) {
+            hash ^= keys[piece][Bitboard.firstSquare(squares)];
+        }
+        return hash;
+    }
+
+    /**
+     * Switches the player to move.
+     *
+     * @param hash the hash
+     * @return the updated hash
+     */
+    public long switchSide(long hash) {
+        return hash ^ sideToMove;
+    }
+}
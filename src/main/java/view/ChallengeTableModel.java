@@ -0,0 +1,145 @@
+package view;
+
+import model.Challenge;
+
+import javax.swing.table.AbstractTableModel;
+import java.util.ArrayList;
+import java.util.HashMap;
+
+/**
+ * <p>
+ * The table model of the challenge table in the lobby.
+ * <p>
+ * Rows are indexed by challenge number, so looking up, adding and removing a challenge doesn't scan the table. A removed
+ * row is replaced by the last row, the table is sorted by its row sorter anyway. Every change fires the smallest possible
+ * table event instead of a structure change.
+ */
+class ChallengeTableModel extends AbstractTableModel {
+    private static final long serialVersionUID = 1L;
+    private static final int ACCEPT_COLUMN = 4;
+    private static final int REJECT_COLUMN = 5;
+    private final String[] columnNames;
+    private final ArrayList<Challenge> rows = new ArrayList<>();
+    private final HashMap<String, Integer> rowIndex = new HashMap<>();
+
+    /**
+     * Instantiates a new challenge table model.
+     *
+     * @param acceptText the text of the accept buttons
+     * @param rejectText the text of the reject buttons
+     */
+    ChallengeTableModel(String acceptText, String rejectText) {
+        columnNames = new String[]{"ID", "Game", "Player", "Turn Time", acceptText, rejectText};
+    }
+
+    /**
+     * Adds a challenge, or replaces the challenge with the same number.
+     *
+     * @param challenge the challenge
+     */
+    void add(Challenge challenge) {
+        Integer row = rowIndex.get(challenge.getNumber());
+        if (row != null) {
+            rows.set(row, challenge);
+            fireTableRowsUpdated(row, row);
+            return;
+        }
+        rows.add(challenge);
+        row = rows.size() - 1;
+        rowIndex.put(challenge.getNumber(), row);
+        fireTableRowsInserted(row, row);
+    }
+
+    /**
+     * Gets a challenge.
+     *
+     * @param challengeNumber the challenge number
+     * @return the challenge, or null if it is not in the table
+     */
+    Challenge get(String challengeNumber) {
+        Integer row = rowIndex.get(challengeNumber);
+        return row == null ? null : rows.get(row);
+    }
+
+    /**
+     * Gets the challenge of a row.
+     *
+     * @param row the model row
+     * @return the challenge
+     */
+    Challenge getChallengeAt(int row) {
+        return rows.get(row);
+    }
+
+    /**
+     * Removes a challenge.
+     *
+     * @param challengeNumber the challenge number
+     */
+    void remove(String challengeNumber) {
+        Integer row = rowIndex.remove(challengeNumber);
+        if (row == null) {
+            return;
+        }
+        int lastRow = rows.size() - 1;
+        Challenge last = rows.remove(lastRow);
+        if (row != lastRow) {
+            rows.set(row, last);
+            rowIndex.put(last.getNumber(), row);
+        }
+        fireTableRowsDeleted(lastRow, lastRow);
+        if (row != lastRow) {
+            fireTableRowsUpdated(row, row);
+        }
+    }
+
+    /**
+     * Removes all challenges.
+     */
+    void clear() {
+        if (rows.isEmpty()) {
+            return;
+        }
+        int lastRow = rows.size() - 1;
+        rows.clear();
+        rowIndex.clear();
+        fireTableRowsDeleted(0, lastRow);
+    }
+
+    @Override
+    public int getRowCount() {
+        return rows.size();
+    }
+
+    @Override
+    public int getColumnCount() {
+        return columnNames.length;
+    }
+
+    @Override
+    public String getColumnName(int column) {
+        return columnNames[column];
+    }
+
+    @Override
+    public boolean isCellEditable(int row, int column) {
+        return column == ACCEPT_COLUMN || column == REJECT_COLUMN;
+    }
+
+    @Override
+    public Object getValueAt(int row, int column) {
+        Challenge challenge = rows.get(row);
+        switch (column) {
+            case 0:
+                return challenge.getNumber();
+            case 1:
+                return challenge.getGameType();
+            case 2:
+                return challenge.getPlayer();
+            case 3:
+                return challenge.getTurnTime();
+            default:
+                return columnNames[column];
+        }
+    }
+}
@@ -1,11 +1,11 @@
 package view;
 
 import model.Model;
+import model.ModelEvent;
 import org.apache.logging.log4j.LogManager;
 
 import javax.swing.*;
 import java.awt.*;
-import java.awt.event.ActionEvent;
 import java.io.File;
 import java.net.URL;
 
@@ -64,31 +64,26 @@ public class ContainerView extends JFrame implements View {
     }
 
     /* (non-Javadoc)
-     * @see java.awt.event.ActionListener#actionPerformed(java.awt.event.ActionEvent)
+     * @see model.ModelListener#modelChanged(model.Model, model.ModelEvent, java.lang.String)
      */
     @Override
-    public void actionPerformed(ActionEvent e) {
-        Object object = e.getSource();
-        int objectID = e.getID();
-        if (object instanceof Model) {
-            Model model = (Model) object;
-            if (objectID == Model.TURN_SWITCHED) {
-                setTurn(model.getTurn());
-                setTime(model.getChallengeTurnTime(), model);
-            } else if (objectID == Model.GAME_DRAW && model.getPlayingGame()) {
-                this.turn.setText(RESULT_DRAW);
-                gameOver = true;
-            } else if (objectID == Model.GAME_LOSS && model.getPlayingGame()) {
-                this.turn.setText(RESULT_LOSS);
-                gameOver = true;
-            } else if (objectID == Model.GAME_WIN && model.getPlayingGame()) {
-                this.turn.setText(RESULT_WIN);
-                gameOver = true;
-            } else if (objectID == Model.GAME_CHANGED && e.getActionCommand().equals(Model.OPPONENT_SET)) {
-                this.opponent.setText("Opponent: " + model.getOpponent());
-            } else if (objectID == Model.TURN_MESSAGE_CHANGED) {
-                this.setTurnMessage(model.getTurnMessage());
-            }
+    public void modelChanged(Model model, ModelEvent event, String value) {
+        if (event == ModelEvent.TURN_SWITCHED) {
+            setTurn(model.getTurn());
+            setTime(model.getChallengeTurnTime(), model);
+        } else if (event == ModelEvent.GAME_DRAW && model.getPlayingGame()) {
+            this.turn.setText(RESULT_DRAW);
+            gameOver = true;
+        } else if (event == ModelEvent.GAME_LOSS && model.getPlayingGame()) {
+            this.turn.setText(RESULT_LOSS);
+            gameOver = true;
+        } else if (event == ModelEvent.GAME_WIN && model.getPlayingGame()) {
+            this.turn.setText(RESULT_WIN);
+            gameOver = true;
+        } else if (event == ModelEvent.OPPONENT_SET) {
+            this.opponent.setText("Opponent: " + model.getOpponent());
+        } else if (event == ModelEvent.TURN_MESSAGE_CHANGED) {
+            this.setTurnMessage(model.getTurnMessage());
         }
     }
 
@@ -164,10 +159,14 @@ public class ContainerView extends JFrame implements View {
     /**
      * Sets the time.
      *
-     * @param timeInMillis the time in millis
+     * @param timeInMillis the time in millis, {@link Model#UNKNOWN_TURN_TIME} to show no time
      * @param model the model
      */
     private void setTime(int timeInMillis, Model model) {
+        if (timeInMillis == Model.UNKNOWN_TURN_TIME) {
+            setTimeBox("");
+            return;
+        }
         Runnable thread = () -> {
             setTimeBox("");
             boolean timeIsRunning = model.getTurn();
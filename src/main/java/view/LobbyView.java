@@ -1,21 +1,26 @@
 package view;
 
+import model.Challenge;
 import model.Model;
+import model.ModelEvent;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
 import util.ButtonColumn;
-import util.ColumnSorter;
 
 import javax.swing.*;
-import javax.swing.table.DefaultTableModel;
+import javax.swing.table.TableRowSorter;
 import java.awt.*;
 import java.awt.event.ActionEvent;
 import java.awt.event.ActionListener;
 import java.awt.event.MouseAdapter;
 import java.awt.event.MouseEvent;
-import java.util.*;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
 
 /**
  * The Class LobbyView.
@@ -25,14 +30,18 @@ public class LobbyView extends JPanel implements View {
     public static final int PLAY_GAME = 2;
     public static final int CHALLENGE_PLAYER = 3;
     public static final int CHALLENGE_ACCEPTED = 4;
+    public static final int CHALLENGE_REJECTED = 5;
     private static final Logger LOGGER = LogManager.getLogger(LobbyView.class);
     private static final String CHALLENGE_ACCEPT = "Accept";
     private static final String CHALLENGE_REJECT = "Reject";
+    private static final String NO_MODULE = "No game module loaded for this game";
     private static final long serialVersionUID = 1L;
     private JTable challengeTable;
+    private ChallengeTableModel challengeTableModel;
     private JList<String> playerList;
     private JList<String> gameList;
     private DefaultListModel<String> playerListModel, gameListModel;
+    private final Set<String> unplayableGames = new HashSet<>();
     private boolean automaticRefresh = false;
     private ArrayList<ActionListener> actionListenerList = new ArrayList<>();
 
@@ -77,6 +86,19 @@ public class LobbyView extends JPanel implements View {
         lobbyPanel.add(gamePlayerPanel);
         gamePlayerPanel.setLayout(new GridLayout(1, 0, 0, 0));
         gameList = new JList<>(gameListModel);
+        gameList.setCellRenderer(new DefaultListCellRenderer() {
+            private static final long serialVersionUID = 1L;
+
+            @Override
+            public Component getListCellRendererComponent(JList<?> list, Object value, int index, boolean isSelected,
+                                                          boolean cellHasFocus) {
+                super.getListCellRendererComponent(list, value, index, isSelected, cellHasFocus);
+                boolean playable = !unplayableGames.contains(value);
+                setEnabled(playable);
+                setToolTipText(playable ? null : NO_MODULE);
+                return this;
+            }
+        });
         JPanel gamePanel = new JPanel();
         gamePanel.setLayout(new BorderLayout(0, 0));
         gamePanel.add(new JScrollPane(gameList), BorderLayout.CENTER);
@@ -93,26 +115,23 @@ public class LobbyView extends JPanel implements View {
         challengeTable = new JTable();
         challengeTable.setPreferredScrollableViewportSize(challengeTable.getPreferredSize());
         challengeTable.setFillsViewportHeight(true);
-        DefaultTableModel challengeTableModel = new DefaultTableModel(new Object[][]{},
-                new String[]{"ID", "Game", "Player", "Turn Time", CHALLENGE_ACCEPT, CHALLENGE_REJECT});
+        challengeTableModel = new ChallengeTableModel(CHALLENGE_ACCEPT, CHALLENGE_REJECT);
         challengeTable.setModel(challengeTableModel);
 
         challengeTable.setAutoCreateColumnsFromModel(false);
         challengeTable.getTableHeader().setReorderingAllowed(false);
-        challengeTable.setAutoCreateRowSorter(true);
-
-        Vector data = challengeTableModel.getDataVector();
-        Collections.sort(data, new ColumnSorter(1));
-        challengeTableModel.fireTableStructureChanged();
+        TableRowSorter<ChallengeTableModel> challengeSorter = new TableRowSorter<>(challengeTableModel);
+        challengeSorter.setSortKeys(Collections.singletonList(new RowSorter.SortKey(1, SortOrder.ASCENDING)));
+        challengeSorter.setSortsOnUpdates(true);
+        challengeTable.setRowSorter(challengeSorter);
 
         Action acceptChallenge = new AbstractAction() {
             private static final long serialVersionUID = 1L;
 
             @Override
             public void actionPerformed(ActionEvent e) {
-                JTable table = (JTable) e.getSource();
                 int modelRow = Integer.parseInt(e.getActionCommand());
-                acceptChallenge((String) table.getValueAt(modelRow, 0));
+                acceptChallenge(challengeTableModel.getChallengeAt(modelRow).getNumber());
             }
         };
 
@@ -124,9 +143,8 @@ public class LobbyView extends JPanel implements View {
                 int result = JOptionPane.showConfirmDialog(null, CHALLENGE_REJECT + " challenge?", null,
                         JOptionPane.YES_NO_OPTION);
                 if (result == JOptionPane.YES_OPTION) {
-                    JTable table = (JTable) e.getSource();
                     int modelRow = Integer.parseInt(e.getActionCommand());
-                    ((DefaultTableModel) table.getModel()).removeRow(modelRow);
+                    rejectChallenge(challengeTableModel.getChallengeAt(modelRow).getNumber());
                 }
             }
         };
@@ -138,20 +156,17 @@ public class LobbyView extends JPanel implements View {
     }
 
     /* (non-Javadoc)
-     * @see java.awt.event.ActionListener#actionPerformed(java.awt.event.ActionEvent)
+     * @see model.ModelListener#modelChanged(model.Model, model.ModelEvent, java.lang.String)
      */
     @Override
-    public void actionPerformed(ActionEvent e) {
-        Object object = e.getSource();
-        int sourceID = e.getID();
-        if (object instanceof Model) {
-            Model model = (Model) object;
-            if (sourceID == Model.NEW_CHALLENGE) {
-                int index = Integer.parseInt(e.getActionCommand());
-                setChallenge(model.getChallenge(index));
-            } else if (sourceID == Model.CANCEL_CHALLENGE) {
-                deleteChallenge(e.getActionCommand());
+    public void modelChanged(Model model, ModelEvent event, String value) {
+        if (event == ModelEvent.NEW_CHALLENGE) {
+            Challenge challenge = model.getChallenge(value);
+            if (challenge != null) {
+                setChallenge(challenge);
             }
+        } else if (event == ModelEvent.CANCEL_CHALLENGE) {
+            deleteChallenge(value);
         }
     }
 
@@ -171,9 +186,11 @@ public class LobbyView extends JPanel implements View {
      * Sets the available games.
      *
      * @param games the new available games
+     * @param unplayable the games without a game module, which are shown disabled
      */
-    public void setAvailableGames(List<String> games) {
+    public void setAvailableGames(List<String> games, Collection<String> unplayable) {
         resetGameList();
+        unplayableGames.addAll(unplayable);
         for (String game : games) {
             gameListModel.addElement(game);
         }
@@ -212,13 +229,8 @@ public class LobbyView extends JPanel implements View {
      *
      * @param challenge the challenge
      */
-    private void setChallenge(Map<String, String> challenge) {
-        DefaultTableModel model = (DefaultTableModel) challengeTable.getModel();
-
-        // needs to be modified to accept or reject a challenge
-        model.addRow(
-                new Object[]{challenge.get(Model.CHALLENGE_GAME_NUMBER), challenge.get(Model.CHALLENGE_GAME_TYPE),
-                        challenge.get(Model.CHALLENGE_PLAYER), challenge.get(Model.CHALLENGE_TURN_TIME), CHALLENGE_ACCEPT, CHALLENGE_REJECT,});
+    private void setChallenge(Challenge challenge) {
+        challengeTableModel.add(challenge);
     }
 
     /**
@@ -231,75 +243,39 @@ public class LobbyView extends JPanel implements View {
     }
 
     /**
-     * Delete challenge.
+     * Reject challenge.
      *
      * @param challengeNumber the challenge number
      */
-    public void deleteChallenge(String challengeNumber) {
-        DefaultTableModel challengeTableModel = (DefaultTableModel) challengeTable.getModel();
-        for (int i = challengeTableModel.getRowCount() - 1; i >= 0; i--) {
-            if (challengeNumber.equals(challengeTableModel.getValueAt(i, 0))) {
-                challengeTableModel.removeRow(i);
-            }
-        }
+    private void rejectChallenge(String challengeNumber) {
+        deleteChallenge(challengeNumber);
+        processEvent(new ActionEvent(this, CHALLENGE_REJECTED, challengeNumber));
     }
 
     /**
-     * Reset challenge.
-     */
-    private void resetChallenge() {
-        DefaultTableModel challengeTableModel = (DefaultTableModel) challengeTable.getModel();
-        for (int i = challengeTableModel.getRowCount() - 1; i >= 0; i--) {
-            challengeTableModel.removeRow(i);
-        }
-    }
-
-    /**
-     * Gets the player from the challenge.
+     * Delete challenge.
      *
      * @param challengeNumber the challenge number
-     * @return the player from challenge
      */
-    public String getPlayerFromChallenge(String challengeNumber) {
-        DefaultTableModel challengeTableModel = (DefaultTableModel) challengeTable.getModel();
-        for (int i = challengeTableModel.getRowCount() - 1; i >= 0; i--) {
-            if (challengeNumber.equals(challengeTableModel.getValueAt(i, 0))) {
-                return (String) challengeTableModel.getValueAt(i, 2);
-            }
-        }
-        return null;
+    public void deleteChallenge(String challengeNumber) {
+        challengeTableModel.remove(challengeNumber);
     }
 
     /**
-     * Gets the game type from the challenge.
-     *
-     * @param challengeNumber the challenge number
-     * @return the game type from challenge
+     * Reset challenge.
      */
-    public String getGameTypeFromChallenge(String challengeNumber) {
-        DefaultTableModel challengeTableModel = (DefaultTableModel) challengeTable.getModel();
-        for (int i = challengeTableModel.getRowCount() - 1; i >= 0; i--) {
-            if (challengeNumber.equals(challengeTableModel.getValueAt(i, 0))) {
-                return (String) challengeTableModel.getValueAt(i, 1);
-            }
-        }
-        return null;
+    private void resetChallenge() {
+        challengeTableModel.clear();
     }
 
     /**
-     * Gets the turn time from the challenge.
+     * Gets a challenge in the challenge table.
      *
      * @param challengeNumber the challenge number
-     * @return the turn time from challenge
+     * @return the challenge, or null if it is not in the table
      */
-    public String getTurnTimeFromChallenge(String challengeNumber) {
-        DefaultTableModel challengeTableModel = (DefaultTableModel) challengeTable.getModel();
-        for (int i = challengeTableModel.getRowCount() - 1; i >= 0; i--) {
-            if (challengeNumber.equals(challengeTableModel.getValueAt(i, 0))) {
-                return (String) challengeTableModel.getValueAt(i, 3);
-            }
-        }
-        return null;
+    public Challenge getChallenge(String challengeNumber) {
+        return challengeTableModel.get(challengeNumber);
     }
 
     /**
@@ -315,6 +291,7 @@ public class LobbyView extends JPanel implements View {
      * Reset the game list.
      */
     private void resetGameList() {
+        unplayableGames.clear();
         for (int i = gameListModel.size() - 1; i >= 0; i--) {
             gameListModel.remove(i);
         }
@@ -1,5 +1,8 @@
 package view;
 
+import model.Model;
+import model.ModelEvent;
+
 import javax.swing.*;
 import java.awt.event.ActionEvent;
 import java.awt.event.ActionListener;
@@ -20,6 +23,7 @@ public class MenuView extends JMenuBar implements View {
     public static final int FALSE_MOVE = 10;
     public static final int SEND_MESSAGE = 11;
     public static final int SET_TURNTIME = 12;
+    public static final int EXIT = 13;
 
     private static final long serialVersionUID = 1L;
     private JCheckBoxMenuItem playWithAIMenuItem;
@@ -52,7 +56,7 @@ public class MenuView extends JMenuBar implements View {
         JMenuItem menuItemExit = new JMenuItem("Exit");
         menuItemExit.setMnemonic(KeyEvent.VK_E);
         menuItemExit.setToolTipText("Exit application");
-        menuItemExit.addActionListener(event -> System.exit(0));
+        menuItemExit.addActionListener(event -> processEvent(new ActionEvent(this, EXIT, null)));
         start.add(menuItemExit);
 
         JMenu game = new JMenu("Game");
@@ -112,10 +116,10 @@ public class MenuView extends JMenuBar implements View {
     }
 
     /* (non-Javadoc)
-     * @see java.awt.event.ActionListener#actionPerformed(java.awt.event.ActionEvent)
+     * @see model.ModelListener#modelChanged(model.Model, model.ModelEvent, java.lang.String)
      */
     @Override
-    public void actionPerformed(ActionEvent e) {
+    public void modelChanged(Model model, ModelEvent event, String value) {
     }
 
     /**
@@ -1,10 +1,10 @@
 package view;
 
-import java.awt.event.ActionListener;
+import model.ModelListener;
 
 /**
  * The Interface View.
  */
-public interface View extends ActionListener {
+public interface View extends ModelListener {
 
 }
@@ -0,0 +1,67 @@
+package controller;
+
+import controller.ConnectionManager.Connection;
+import model.FakeServer;
+import model.Model;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class ControllerTest {
+    private FakeServer guiServer;
+    private FakeServer otherServer;
+    private Controller controller;
+
+    @Before
+    public void setUp() throws IOException {
+        guiServer = new FakeServer();
+        otherServer = new FakeServer();
+        controller = new Controller(new Model(), false);
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        controller.getConnectionManager().disconnectAll();
+        guiServer.close();
+        otherServer.close();
+    }
+
+    @Test(timeout = 10000)
+    public void closeLeavesManagedConnectionsOpen() throws IOException, InterruptedException {
+        assertTrue(controller.connect(guiServer.getHost(), guiServer.getPort()));
+        assertTrue(controller.login("bob"));
+        Connection connection = controller.getConnectionManager().connect(otherServer.getHost(), otherServer.getPort(),
+                "bob");
+        assertEquals("login bob", otherServer.nextLine("login", 1, TimeUnit.SECONDS));
+
+        controller.close();
+
+        assertEquals("logout", guiServer.nextLine("logout", 1, TimeUnit.SECONDS));
+        assertNull(otherServer.nextLine("logout", 300, TimeUnit.MILLISECONDS));
+        assertEquals(1, controller.getConnectionManager().getConnections().size());
+        assertSame(connection, controller.getConnectionManager().getConnections().get(0));
+        assertTrue(connection.getServerConnection().isConnected());
+        assertTrue(connection.getServerConnection().subscribe("Reversi"));
+    }
+
+    @Test(timeout = 10000)
+    public void disconnectAllClosesManagedConnections() throws IOException, InterruptedException {
+        Connection connection = controller.getConnectionManager().connect(otherServer.getHost(), otherServer.getPort(),
+                "bob");
+
+        controller.getConnectionManager().disconnectAll();
+
+        assertEquals("logout", otherServer.nextLine("logout", 1, TimeUnit.SECONDS));
+        assertTrue(controller.getConnectionManager().getConnections().isEmpty());
+        assertFalse(connection.getServerConnection().isConnected());
+    }
+}
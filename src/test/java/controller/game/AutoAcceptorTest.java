@@ -0,0 +1,117 @@
+package controller.game;
+
+import model.FakeServer;
+import model.Model;
+import model.ServerConnection;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+public class AutoAcceptorTest {
+    private final Model model = new Model();
+    private final List<FakeServer> servers = new ArrayList<>();
+    private final List<ServerConnection> connections = new ArrayList<>();
+    private final List<AutoAcceptor> acceptors = new ArrayList<>();
+
+    @Before
+    public void setUp() {
+        model.putGameModulePieces("Reversi", new String[]{"Black", "White"});
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        for (AutoAcceptor acceptor : acceptors) {
+            acceptor.close();
+        }
+        for (ServerConnection connection : connections) {
+            connection.close();
+        }
+        for (FakeServer server : servers) {
+            server.close();
+        }
+    }
+
+    @Test(timeout = 10000)
+    public void slowServerOnlyDelaysItsOwnConnection() throws IOException, InterruptedException {
+        FakeServer slow = server();
+        slow.setResponder(line -> line.startsWith("challenge accept") ? Collections.emptyList() : FakeServer.answer(line));
+        FakeServer fast = server();
+        AutoAcceptor slowAcceptor = acceptor(slow);
+        AutoAcceptor fastAcceptor = acceptor(fast);
+
+        challenge(slowAcceptor, "1");
+        assertEquals("challenge accept 1", slow.nextLine("challenge", 1, TimeUnit.SECONDS));
+        challenge(fastAcceptor, "2");
+
+        assertEquals("challenge accept 2", fast.nextLine("challenge", 1, TimeUnit.SECONDS));
+    }
+
+    @Test(timeout = 10000)
+    public void closedSessionNoLongerCountsAsGame() throws IOException, InterruptedException {
+        FakeServer server = server();
+        AutoAcceptor acceptor = acceptor(server);
+        acceptor.match("alice", "Reversi", "alice");
+
+        challenge(acceptor, "3");
+        assertNull(server.nextLine("challenge", 300, TimeUnit.MILLISECONDS));
+
+        acceptor.sessionClosed();
+        challenge(acceptor, "4");
+        assertEquals("challenge accept 4", server.nextLine("challenge", 1, TimeUnit.SECONDS));
+    }
+
+    @Test(timeout = 10000)
+    public void refusedAcceptFreesItsGame() throws IOException, InterruptedException {
+        FakeServer server = server();
+        server.setResponder(line -> line.equals("challenge accept 5") ? Collections.singletonList("ERR unknown challenge")
+                : FakeServer.answer(line));
+        AutoAcceptor acceptor = acceptor(server);
+
+        challenge(acceptor, "5");
+        assertEquals("challenge accept 5", server.nextLine("challenge", 1, TimeUnit.SECONDS));
+        String accepted = null;
+        for (int tries = 0; tries < 100 && accepted == null; tries++) {
+            challenge(acceptor, "6");
+            accepted = server.nextLine("challenge", 20, TimeUnit.MILLISECONDS);
+        }
+        assertEquals("challenge accept 6", accepted);
+    }
+
+    @Test(timeout = 10000)
+    public void closedAcceptorAcceptsNothing() throws IOException, InterruptedException {
+        FakeServer server = server();
+        AutoAcceptor acceptor = acceptor(server);
+        acceptor.close();
+
+        challenge(acceptor, "7");
+        assertNull(server.nextLine("challenge", 300, TimeUnit.MILLISECONDS));
+    }
+
+    private FakeServer server() throws IOException {
+        FakeServer server = new FakeServer();
+        servers.add(server);
+        return server;
+    }
+
+    private AutoAcceptor acceptor(FakeServer server) throws IOException {
+        ServerConnection connection = new ServerConnection(server.getHost(), server.getPort());
+        connections.add(connection);
+        AutoAcceptor acceptor = new AutoAcceptor(model, connection, new ChallengePolicy());
+        acceptors.add(acceptor);
+        return acceptor;
+    }
+
+    private void challenge(AutoAcceptor acceptor, String number) {
+        model.setNewChallenge("Reversi", "player" + number, number, "10");
+        acceptor.challenge("player" + number, number, "Reversi", "10");
+    }
+}
@@ -0,0 +1,91 @@
+package controller.game;
+
+import model.FakeServer;
+import model.Model;
+import model.ServerConnection;
+import model.SessionJournal;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class GameControllerTest {
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+    private final Model model = new Model();
+    private FakeServer server;
+    private ServerConnection connection;
+    private GameController controller;
+
+    @Before
+    public void setUp() throws IOException {
+        System.setProperty("framework.sessions", folder.newFolder("sessions").getPath());
+        model.putGameModulePieces("Reversi", new String[]{"Black", "White"});
+        server = new FakeServer();
+        connection = new ServerConnection(server.getHost(), server.getPort());
+        controller = new GameController(model, connection, new GameModuleLoader(folder.newFolder("modules"), model), "bob");
+        connection.addGameListener(controller);
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        System.clearProperty("framework.sessions");
+        controller.setSessionJournal(null);
+        connection.close();
+        server.close();
+    }
+
+    @Test(timeout = 10000)
+    public void resumingHeadlessMatchKeepsTheSideOfTheModel() throws InterruptedException {
+        writeSnapshot("White");
+        model.setChosenGameSides("Reversi", "Black");
+
+        controller.setSessionJournal(SessionJournal.forClient("bob", connection.getServerAddress()));
+        awaitDispatcher();
+
+        assertEquals("Black", model.getChosenGameSides("Reversi"));
+        assertEquals("White", controller.getSession().getSide());
+        assertEquals(60000, controller.getSession().getTurnTime());
+    }
+
+    @Test(timeout = 10000)
+    public void resumeRunsOnTheDispatchThread() throws InterruptedException {
+        writeSnapshot("White");
+        CountDownLatch release = new CountDownLatch(1);
+        assertTrue(connection.runOnDispatcher(() -> {
+            try {
+                release.await(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }));
+
+        controller.setSessionJournal(SessionJournal.forClient("bob", connection.getServerAddress()));
+        assertNull(controller.getSession());
+
+        release.countDown();
+        awaitDispatcher();
+        assertEquals("alice", controller.getSession().getOpponent());
+    }
+
+    private void writeSnapshot(String side) {
+        SessionJournal snapshot = SessionJournal.forClient("bob", connection.getServerAddress());
+        snapshot.startMatch("Reversi", "alice", "alice", side, 60000);
+        snapshot.close();
+    }
+
+    private void awaitDispatcher() throws InterruptedException {
+        CountDownLatch done = new CountDownLatch(1);
+        assertTrue(connection.runOnDispatcher(done::countDown));
+        assertTrue(done.await(5, TimeUnit.SECONDS));
+    }
+}
@@ -0,0 +1,79 @@
+package controller.game;
+
+import model.Model;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class TurnTimeTrackerTest {
+    private static final long SAFETY_MARGIN = 200;
+
+    @Test
+    public void turnTimeOfServerIsParsedInMilliseconds() {
+        assertEquals(10000, Model.parseTurnTime("10"));
+        assertEquals(0, Model.parseTurnTime("0"));
+        assertEquals(Model.UNKNOWN_TURN_TIME, Model.parseTurnTime(null));
+        assertEquals(Model.UNKNOWN_TURN_TIME, Model.parseTurnTime(""));
+        assertEquals(Model.UNKNOWN_TURN_TIME, Model.parseTurnTime("ten"));
+        assertEquals(Model.UNKNOWN_TURN_TIME, Model.parseTurnTime("-5"));
+        assertEquals(Model.UNKNOWN_TURN_TIME, Model.parseTurnTime("99999999999"));
+    }
+
+    @Test
+    public void unknownTurnTimeGivesNoBudget() {
+        TurnTimeTracker tracker = new TurnTimeTracker();
+        tracker.startMatch("Reversi", Model.parseTurnTime(null));
+        assertEquals(-1, tracker.getAIBudget());
+
+        tracker.setRoundTripTimeout(50);
+        assertEquals(-1, tracker.getAIBudget());
+        assertEquals(0, tracker.getMatchMinimalSlack());
+    }
+
+    @Test
+    public void unknownTurnTimeNeverCountsTimeouts() throws InterruptedException {
+        TurnTimeTracker tracker = new TurnTimeTracker();
+        tracker.startMatch("Reversi", Model.UNKNOWN_TURN_TIME);
+        playTurn(tracker, true);
+
+        assertEquals(1, tracker.getTotalTurns());
+        assertEquals(0, tracker.getTotalTimeouts());
+    }
+
+    @Test
+    public void budgetReservesRoundTripTimeoutAndMargin() {
+        TurnTimeTracker tracker = new TurnTimeTracker();
+        tracker.startMatch("Reversi", Model.parseTurnTime("10"));
+        assertEquals(10000 - SAFETY_MARGIN, tracker.getAIBudget());
+
+        tracker.setRoundTripTimeout(300);
+        assertEquals(10000 - 300 - SAFETY_MARGIN, tracker.getAIBudget());
+
+        tracker.startMatch("Reversi", 100);
+        assertEquals(0, tracker.getAIBudget());
+    }
+
+    @Test
+    public void exceededAndRefusedTurnsAreTimeouts() throws InterruptedException {
+        TurnTimeTracker tracker = new TurnTimeTracker();
+        tracker.startMatch("Tic-tac-toe", 1);
+        playTurn(tracker, true);
+        tracker.startMatch("Tic-tac-toe", 10000);
+        playTurn(tracker, false);
+        playTurn(tracker, true);
+
+        assertEquals(3, tracker.getTotalTurns());
+        assertEquals(2, tracker.getTotalTimeouts());
+        assertTrue(tracker.getMatchMinimalSlack() > 0);
+    }
+
+    private static void playTurn(TurnTimeTracker tracker, boolean accepted) throws InterruptedException {
+        tracker.turnStarted();
+        tracker.aiStarted();
+        Thread.sleep(5);
+        tracker.aiFinished();
+        tracker.moveWritten();
+        tracker.moveAcknowledged(accepted);
+    }
+}
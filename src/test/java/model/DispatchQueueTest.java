@@ -0,0 +1,186 @@
+package model;
+
+import controller.game.GameListener;
+import model.DispatchQueue.EventType;
+import model.DispatchQueue.OverflowPolicy;
+import org.junit.After;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class DispatchQueueTest {
+    private final CountDownLatch release = new CountDownLatch(1);
+    private DispatchQueue queue;
+
+    @After
+    public void tearDown() throws InterruptedException {
+        release.countDown();
+        if (queue != null) {
+            queue.close();
+            queue.getDispatcher().join(5000);
+        }
+    }
+
+    @Test(timeout = 10000)
+    public void deliversInOrderAcrossWrapAround() throws InterruptedException {
+        RecordingGameListener listener = new RecordingGameListener();
+        queue = new DispatchQueue(listeners(listener), "test-dispatch", 4, OverflowPolicy.BLOCK);
+        for (int i = 0; i < 1000; i++) {
+            assertTrue(queue.offer(EventType.MOVE, "bob", Integer.toString(i), "", null));
+        }
+        queue.close();
+        queue.getDispatcher().join(5000);
+
+        assertEquals(1000, listener.events.size());
+        for (int i = 0; i < 1000; i++) {
+            assertEquals("move bob " + i + ' ', listener.events.get(i));
+        }
+        assertEquals(0, queue.getDepth());
+        assertEquals(0, queue.getDropped());
+        assertTrue(queue.getMaxDepth() <= 4);
+    }
+
+    @Test(timeout = 10000)
+    public void blockWaitsForRoomInsteadOfDropping() throws InterruptedException {
+        RecordingGameListener listener = new RecordingGameListener();
+        queue = new DispatchQueue(listeners(blockingListener(), listener), "test-dispatch", 2, OverflowPolicy.BLOCK);
+        fill(queue);
+
+        Thread producer = new Thread(() -> queue.offer(EventType.CHALLENGE, "alice", "1", "Reversi", "10"));
+        producer.start();
+        producer.join(200);
+        assertTrue("offer must wait while the queue is full", producer.isAlive());
+
+        release.countDown();
+        producer.join(5000);
+        assertFalse(producer.isAlive());
+        queue.close();
+        queue.getDispatcher().join(5000);
+        assertEquals(0, queue.getDropped());
+        assertEquals("challenge alice 1 Reversi 10", listener.events.get(listener.events.size() - 1));
+    }
+
+    @Test(timeout = 10000)
+    public void dropDiscardsOnlyLobbyEvents() throws InterruptedException {
+        RecordingGameListener listener = new RecordingGameListener();
+        queue = new DispatchQueue(listeners(blockingListener(), listener), "test-dispatch", 2, OverflowPolicy.DROP);
+        fill(queue);
+
+        assertFalse(queue.offer(EventType.CHALLENGE, "alice", "1", "Reversi", "10"));
+        assertFalse(queue.offer(EventType.CHALLENGE_CANCELLED, "1", null, null, null));
+        assertEquals(2, queue.getDropped());
+
+        Thread producer = new Thread(() -> queue.offer(EventType.MOVE, "alice", "42", "", null));
+        producer.start();
+        producer.join(200);
+        assertTrue("game events must wait while the queue is full", producer.isAlive());
+
+        release.countDown();
+        producer.join(5000);
+        queue.close();
+        queue.getDispatcher().join(5000);
+        assertEquals(2, queue.getDropped());
+        assertEquals("move alice 42 ", listener.events.get(listener.events.size() - 1));
+    }
+
+    @Test(timeout = 10000)
+    public void closeDrainsQueueBeforeExiting() throws InterruptedException {
+        RecordingGameListener listener = new RecordingGameListener();
+        queue = new DispatchQueue(listeners(blockingListener(), listener), "test-dispatch", 8, OverflowPolicy.BLOCK);
+        queue.offer(EventType.MOVE, "bob", "19", "", null);
+        queue.offer(EventType.YOURTURN, "go", null, null, null);
+        queue.offer(EventType.WIN, "1", "0", "done", null);
+        queue.close();
+        queue.getDispatcher().join(100);
+        assertTrue(queue.getDispatcher().isAlive());
+
+        release.countDown();
+        queue.getDispatcher().join(5000);
+        assertFalse(queue.getDispatcher().isAlive());
+        assertEquals(3, listener.events.size());
+        assertEquals("win 1 0 done", listener.events.get(2));
+    }
+
+    @Test(timeout = 10000)
+    public void closedQueueDropsInsteadOfBlockingWhenFull() throws InterruptedException {
+        queue = new DispatchQueue(listeners(), "test-dispatch", 1, OverflowPolicy.BLOCK);
+        queue.close();
+        queue.getDispatcher().join(5000);
+
+        assertTrue(queue.offer(EventType.MOVE, "bob", "1", "", null));
+        assertFalse(queue.offer(EventType.MOVE, "bob", "2", "", null));
+        assertEquals(1, queue.getDropped());
+    }
+
+    @Test(timeout = 10000)
+    public void tasksRunOnDispatcherBeforeWaitingEvents() throws InterruptedException {
+        RecordingGameListener listener = new RecordingGameListener();
+        queue = new DispatchQueue(listeners(blockingListener(), listener), "test-dispatch", 8, OverflowPolicy.BLOCK);
+        queue.offer(EventType.MOVE, "bob", "0", "", null);
+        while (queue.getDepth() > 0) {
+            Thread.sleep(1);
+        }
+        queue.offer(EventType.MOVE, "bob", "1", "", null);
+        List<Thread> threads = new CopyOnWriteArrayList<>();
+        assertTrue(queue.execute(() -> {
+            threads.add(Thread.currentThread());
+            listener.events.add("task");
+        }));
+
+        release.countDown();
+        queue.close();
+        assertFalse(queue.execute(() -> listener.events.add("late")));
+        queue.getDispatcher().join(5000);
+        assertEquals(Collections.singletonList(queue.getDispatcher()), threads);
+        assertEquals(Arrays.asList("move bob 0 ", "task", "move bob 1 "), listener.events);
+    }
+
+    @Test
+    public void invalidCapacityFallsBackToDefault() throws InterruptedException {
+        queue = new DispatchQueue(listeners(), "test-dispatch", 0, OverflowPolicy.DROP);
+        for (int i = 0; i < 1024; i++) {
+            assertTrue(queue.offer(EventType.CHALLENGE, "alice", Integer.toString(i), "Reversi", "10"));
+        }
+    }
+
+    /**
+     * Fills a queue of capacity 2 while its dispatcher is stuck in the first event.
+     */
+    private static void fill(DispatchQueue queue) throws InterruptedException {
+        queue.offer(EventType.MOVE, "bob", "0", "", null);
+        while (queue.getDepth() > 0) {
+            Thread.sleep(1);
+        }
+        queue.offer(EventType.MOVE, "bob", "1", "", null);
+        queue.offer(EventType.MOVE, "bob", "2", "", null);
+        assertEquals(2, queue.getDepth());
+    }
+
+    private GameListener blockingListener() {
+        return new RecordingGameListener() {
+            @Override
+            public void move(String player, String move, String details) {
+                try {
+                    release.await(5, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        };
+    }
+
+    private static List<GameListener> listeners(GameListener... listeners) {
+        List<GameListener> list = new CopyOnWriteArrayList<>();
+        Collections.addAll(list, listeners);
+        return list;
+    }
+}
@@ -0,0 +1,137 @@
+package model;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+/**
+ * A game server on localhost which records the lines it receives and answers them with a replaceable responder. By
+ * default every command is answered with OK, and get requests with an OK and an empty list.
+ */
+public class FakeServer implements Closeable {
+    private final ServerSocket serverSocket;
+    private final BlockingQueue<String> received = new LinkedBlockingQueue<>();
+    private final List<Socket> clients = new CopyOnWriteArrayList<>();
+    private volatile Function<String, List<String>> responder = FakeServer::answer;
+
+    public FakeServer() throws IOException {
+        serverSocket = new ServerSocket(0, 50, InetAddress.getLoopbackAddress());
+        Thread acceptor = new Thread(this::acceptClients, "fake-server " + getPort());
+        acceptor.setDaemon(true);
+        acceptor.start();
+    }
+
+    /**
+     * The default answer: OK to every command, with an empty list for get requests.
+     */
+    public static List<String> answer(String line) {
+        if (line.equals("logout") || line.equals("bye")) {
+            return Collections.emptyList();
+        }
+        if (line.startsWith("get ")) {
+            return Arrays.asList("OK", "SVR " + line.substring(4).toUpperCase() + " []");
+        }
+        return Collections.singletonList("OK");
+    }
+
+    public String getHost() {
+        return serverSocket.getInetAddress().getHostAddress();
+    }
+
+    public int getPort() {
+        return serverSocket.getLocalPort();
+    }
+
+    public void setResponder(Function<String, List<String>> responder) {
+        this.responder = responder;
+    }
+
+    /**
+     * Waits for the next line the server receives.
+     *
+     * @return the line, or null if none arrived within the timeout
+     */
+    public String nextLine(long timeout, TimeUnit unit) throws InterruptedException {
+        return received.poll(timeout, unit);
+    }
+
+    /**
+     * Waits for a line which starts with a prefix, skipping other lines.
+     *
+     * @return the line, or null if none arrived within the timeout
+     */
+    public String nextLine(String prefix, long timeout, TimeUnit unit) throws InterruptedException {
+        long deadline = System.nanoTime() + unit.toNanos(timeout);
+        for (long left = unit.toNanos(timeout); left > 0; left = deadline - System.nanoTime()) {
+            String line = received.poll(left, TimeUnit.NANOSECONDS);
+            if (line != null && line.startsWith(prefix)) {
+                return line;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Sends a line to every connected client.
+     */
+    public void send(String line) throws IOException {
+        for (Socket client : clients) {
+            write(client, Collections.singletonList(line));
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        serverSocket.close();
+        for (Socket client : clients) {
+            client.close();
+        }
+    }
+
+    private void acceptClients() {
+        try {
+            while (true) {
+                Socket client = serverSocket.accept();
+                clients.add(client);
+                Thread thread = new Thread(() -> serve(client), "fake-server client");
+                thread.setDaemon(true);
+                thread.start();
+            }
+        } catch (IOException ignored) {
+        }
+    }
+
+    private void serve(Socket client) {
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(client.getInputStream(), StandardCharsets.UTF_8))) {
+            for (String line = reader.readLine(); line != null; line = reader.readLine()) {
+                received.add(line);
+                write(client, responder.apply(line));
+            }
+        } catch (IOException ignored) {
+        }
+    }
+
+    private static void write(Socket client, List<String> lines) throws IOException {
+        OutputStream out = client.getOutputStream();
+        synchronized (client) {
+            for (String line : lines) {
+                out.write((line + '\n').getBytes(StandardCharsets.UTF_8));
+            }
+            out.flush();
+        }
+    }
+}
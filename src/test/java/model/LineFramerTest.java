@@ -0,0 +1,109 @@
+package model;
+
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+public class LineFramerTest {
+
+    @Test
+    public void stripsLineFeedsAndCarriageReturns() throws IOException {
+        assertEquals(Arrays.asList("OK", "SVR HELP", "", "last"), lines(stream("OK\r\nSVR HELP\n\r\nlast\n")));
+    }
+
+    @Test
+    public void returnsLastLineWithoutLineFeedAtEndOfStream() throws IOException {
+        assertEquals(Arrays.asList("OK", "partial"), lines(stream("OK\npartial")));
+        assertEquals(Arrays.asList("OK", "partial"), lines(stream("OK\npartial\r")));
+    }
+
+    @Test
+    public void returnsNullAtEndOfEmptyStream() throws IOException {
+        assertNull(new LineFramer(stream("")).nextLine());
+    }
+
+    @Test
+    public void joinsLinesSplitAcrossReads() throws IOException {
+        byte[] bytes = "SVR GAME MOVE {PLAYER: \"Zoë\"}\r\nOK\n".getBytes(StandardCharsets.UTF_8);
+        for (int chunk = 1; chunk <= bytes.length; chunk++) {
+            assertEquals("chunks of " + chunk, Arrays.asList("SVR GAME MOVE {PLAYER: \"Zoë\"}", "OK"),
+                    lines(new ChunkedInputStream(bytes, chunk)));
+        }
+    }
+
+    @Test
+    public void decodesMultibyteCharacters() throws IOException {
+        String names = "SVR PLAYERLIST [\"Jürgen\", \"Łukasz\", \"東京\", \"😀\"]";
+        assertEquals(Arrays.asList(names, "ascii"), lines(stream(names + "\nascii\n")));
+    }
+
+    @Test
+    public void growsForLinesLongerThanTheBuffer() throws IOException {
+        char[] chars = new char[100 * 1024];
+        Arrays.fill(chars, 'x');
+        chars[chars.length - 1] = 'é';
+        String longLine = new String(chars);
+        assertEquals(Arrays.asList("first", longLine, "after"),
+                lines(new ChunkedInputStream(("first\n" + longLine + "\r\nafter\n").getBytes(StandardCharsets.UTF_8), 4000)));
+    }
+
+    @Test
+    public void lineViewSupportsSubSequence() throws IOException {
+        CharSequence line = new LineFramer(stream("SVR GAME WIN {}\n")).nextLine();
+        assertEquals(15, line.length());
+        assertEquals("WIN", line.subSequence(9, 12));
+        assertEquals('{', line.charAt(13));
+    }
+
+    private static List<String> lines(InputStream in) throws IOException {
+        LineFramer framer = new LineFramer(in);
+        List<String> lines = new ArrayList<>();
+        for (CharSequence line = framer.nextLine(); line != null; line = framer.nextLine()) {
+            lines.add(line.toString());
+        }
+        return lines;
+    }
+
+    private static InputStream stream(String text) {
+        return new ByteArrayInputStream(text.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Returns at most a fixed amount of bytes per read, like a socket which receives a line in several packets.
+     */
+    private static class ChunkedInputStream extends InputStream {
+        private final byte[] bytes;
+        private final int chunk;
+        private int position;
+
+        ChunkedInputStream(byte[] bytes, int chunk) {
+            this.bytes = bytes;
+            this.chunk = chunk;
+        }
+
+        @Override
+        public int read() {
+            return position < bytes.length ? bytes[position++] & 0xFF : -1;
+        }
+
+        @Override
+        public int read(byte[] buffer, int offset, int length) {
+            if (position == bytes.length) {
+                return -1;
+            }
+            int read = Math.min(Math.min(chunk, length), bytes.length - position);
+            System.arraycopy(bytes, position, buffer, offset, read);
+            position += read;
+            return read;
+        }
+    }
+}
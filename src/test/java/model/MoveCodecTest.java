@@ -0,0 +1,64 @@
+package model;
+
+import org.junit.Test;
+
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class MoveCodecTest {
+
+    @Test
+    public void definedMovesHaveTheCodeOfTheirIndex() {
+        MoveCodec codec = MoveCodec.forGameType("codec-defined", new String[]{"0", "1", "2"});
+        assertEquals(2, codec.encode("2"));
+        assertTrue(codec.isDefined(2));
+        assertEquals("1", codec.decode(1));
+        assertEquals("move 1", codec.getCommand(1));
+        assertArrayEquals("move 0\n".getBytes(StandardCharsets.UTF_8), codec.getCommandBytes(0));
+        assertSame(codec.decode(0), codec.intern(new String("0")));
+    }
+
+    @Test
+    public void unknownMovesAreNeverLearned() {
+        MoveCodec codec = MoveCodec.forGameType("codec-unknown", new String[]{"0", "1"});
+        for (int i = 0; i < 10000; i++) {
+            assertEquals(MoveCodec.NO_CODE, codec.encode("abuse" + i));
+        }
+        assertEquals(MoveCodec.NO_CODE, codec.encode("abuse0"));
+        assertEquals(MoveCodec.NO_CODE, codec.encode(null));
+        assertFalse(codec.isDefined(2));
+        String junk = new String("junk");
+        assertSame(junk, codec.intern(junk));
+        assertEquals(1, codec.encode("1"));
+    }
+
+    @Test
+    public void codecWithoutModuleEncodesNothing() {
+        MoveCodec codec = MoveCodec.forGameType("codec-empty");
+        assertEquals(MoveCodec.NO_CODE, codec.encode("19"));
+        assertEquals(MoveCodec.NO_CODE, codec.encode("19"));
+        assertFalse(codec.isDefined(0));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void decodingUnknownCodeFails() {
+        MoveCodec.forGameType("codec-decode", new String[]{"0"}).decode(1);
+    }
+
+    @Test
+    public void codecIsSharedUntilTheDefinedMovesChange() {
+        MoveCodec first = MoveCodec.forGameType("codec-shared", new String[]{"a", "b"});
+        assertSame(first, MoveCodec.forGameType("codec-shared", new String[]{"a", "b"}));
+        assertSame(first, MoveCodec.forGameType("codec-shared"));
+
+        MoveCodec second = MoveCodec.forGameType("codec-shared", new String[]{"b", "a"});
+        assertNotSame(first, second);
+        assertEquals(0, second.encode("b"));
+    }
+}
@@ -0,0 +1,66 @@
+package model;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+
+public class ProtocolJournalTest {
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void replaysRecordedLinesInOrder() throws IOException {
+        File file = folder.newFile("test.journal");
+        ProtocolJournal journal = new ProtocolJournal(file);
+        journal.append(ProtocolTrace.OUTBOUND, "login bob");
+        journal.append(ProtocolTrace.INBOUND, "OK");
+        journal.append(ProtocolTrace.INBOUND, "SVR GAME MATCH {PLAYERTOMOVE: \"bob\", GAMETYPE: \"Reversi\", OPPONENT: \"alice\"}");
+        journal.append(ProtocolTrace.INBOUND, "SVR GAME MOVE {PLAYER: \"bob\", MOVE: \"19\", DETAILS: \"Zet één\"}");
+        journal.append(ProtocolTrace.OUTBOUND, "move 20");
+        journal.close();
+
+        RecordingGameListener listener = new RecordingGameListener();
+        List<String> outbound = new ArrayList<>();
+        ProtocolReplay replay = new ProtocolReplay(file);
+        replay.addGameListener(listener);
+        replay.setOutboundListener(outbound::add);
+
+        assertEquals(5, replay.replay(false));
+        assertEquals(Arrays.asList("login bob", "move 20"), outbound);
+        assertEquals(Arrays.asList("match bob Reversi alice", "move bob 19 Zet één"), listener.events);
+    }
+
+    @Test
+    public void growsBeyondOneChunk() throws IOException {
+        File file = folder.newFile("large.journal");
+        char[] padding = new char[1000];
+        Arrays.fill(padding, 'x');
+        String line = new String(padding);
+        int lines = 6000;
+
+        ProtocolJournal journal = new ProtocolJournal(file);
+        for (int i = 0; i < lines; i++) {
+            journal.append(ProtocolTrace.OUTBOUND, line);
+        }
+        journal.close();
+
+        List<String> outbound = new ArrayList<>();
+        ProtocolReplay replay = new ProtocolReplay(file);
+        replay.setOutboundListener(outbound::add);
+        assertEquals(lines, replay.replay(false));
+        assertEquals(line, outbound.get(lines - 1));
+    }
+
+    @Test(expected = IOException.class)
+    public void refusesOtherFiles() throws IOException {
+        new ProtocolReplay(folder.newFile("empty.journal")).replay(false);
+    }
+}
@@ -0,0 +1,54 @@
+package model;
+
+import controller.game.GameListener;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * A game listener which records every event as a string of its name and arguments, for example
+ * <code>move bob 19 details</code>.
+ */
+class RecordingGameListener implements GameListener {
+    final List<String> events = new CopyOnWriteArrayList<>();
+
+    @Override
+    public void match(String playerToMove, String gameType, String opponent) {
+        events.add("match " + playerToMove + ' ' + gameType + ' ' + opponent);
+    }
+
+    @Override
+    public void yourTurn(String turnMessage) {
+        events.add("yourTurn " + turnMessage);
+    }
+
+    @Override
+    public void move(String player, String move, String details) {
+        events.add("move " + player + ' ' + move + ' ' + details);
+    }
+
+    @Override
+    public void challenge(String challenger, String challengeNumber, String gameType, String challengeTurnTime) {
+        events.add("challenge " + challenger + ' ' + challengeNumber + ' ' + gameType + ' ' + challengeTurnTime);
+    }
+
+    @Override
+    public void challengeCancelled(String challengeNumber) {
+        events.add("challengeCancelled " + challengeNumber);
+    }
+
+    @Override
+    public void loss(String playerOneScore, String playerTwoScore, String comment) {
+        events.add("loss " + playerOneScore + ' ' + playerTwoScore + ' ' + comment);
+    }
+
+    @Override
+    public void win(String playerOneScore, String playerTwoScore, String comment) {
+        events.add("win " + playerOneScore + ' ' + playerTwoScore + ' ' + comment);
+    }
+
+    @Override
+    public void draw(String playerOneScore, String playerTwoScore, String comment) {
+        events.add("draw " + playerOneScore + ' ' + playerTwoScore + ' ' + comment);
+    }
+}
@@ -0,0 +1,84 @@
+package model;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class ServerConnectionTest {
+    private static final long TIMEOUT_NANOS = TimeUnit.MILLISECONDS.toNanos(200);
+    private FakeServer server;
+    private ServerConnection connection;
+
+    @Before
+    public void setUp() throws IOException {
+        server = new FakeServer();
+        connection = new ServerConnection(server.getHost(), server.getPort());
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        connection.close();
+        server.close();
+    }
+
+    @Test(timeout = 10000)
+    public void pingMeasuresRoundTrip() throws InterruptedException {
+        assertTrue(connection.ping(TIMEOUT_NANOS) >= 0);
+        assertEquals("get gamelist", server.nextLine("get", 1, TimeUnit.SECONDS));
+    }
+
+    @Test(timeout = 10000)
+    public void pingSkipsStrayResponses() {
+        server.setResponder(line -> line.equals("get gamelist")
+                ? Arrays.asList("SVR PLAYERLIST [\"alice\"]", "OK", "SVR PLAYERLIST []", "SVR GAMELIST [\"Reversi\"]")
+                : FakeServer.answer(line));
+
+        assertTrue(connection.ping(TIMEOUT_NANOS) >= 0);
+    }
+
+    @Test(timeout = 10000)
+    public void pingWithoutGameListIsNotAnswered() {
+        server.setResponder(line -> line.equals("get gamelist") ? Arrays.asList("OK", "SVR PLAYERLIST []")
+                : FakeServer.answer(line));
+
+        assertEquals(ServerConnection.PING_NOT_ANSWERED, connection.ping(TIMEOUT_NANOS));
+    }
+
+    @Test(timeout = 10000)
+    public void pingGivesUpAfterItsTimeout() {
+        server.setResponder(line -> line.equals("get gamelist") ? Collections.emptyList() : FakeServer.answer(line));
+
+        long start = System.nanoTime();
+        assertEquals(ServerConnection.PING_NOT_ANSWERED, connection.ping(TIMEOUT_NANOS));
+        assertTrue(System.nanoTime() - start < TimeUnit.SECONDS.toNanos(2));
+    }
+
+    @Test(timeout = 10000)
+    public void pingIsSkippedWhileRequestIsInProgress() throws InterruptedException {
+        CountDownLatch sent = new CountDownLatch(1);
+        server.setResponder(line -> {
+            if (line.startsWith("subscribe")) {
+                sent.countDown();
+                return Collections.emptyList();
+            }
+            return FakeServer.answer(line);
+        });
+        Thread request = new Thread(() -> connection.subscribe("Reversi"));
+        request.setDaemon(true);
+        request.start();
+        assertTrue(sent.await(5, TimeUnit.SECONDS));
+
+        long start = System.nanoTime();
+        assertEquals(ServerConnection.PING_SKIPPED, connection.ping(TimeUnit.SECONDS.toNanos(5)));
+        assertTrue(System.nanoTime() - start < TimeUnit.SECONDS.toNanos(1));
+    }
+}
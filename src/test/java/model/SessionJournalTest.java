@@ -0,0 +1,154 @@
+package model;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class SessionJournalTest {
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+    private File directory;
+
+    @Before
+    public void setUp() throws IOException {
+        directory = folder.newFolder("sessions");
+        System.setProperty("framework.sessions", directory.getPath());
+    }
+
+    @After
+    public void tearDown() {
+        System.clearProperty("framework.sessions");
+    }
+
+    @Test
+    public void roundTripsMatchMovesAndTurn() {
+        SessionJournal journal = SessionJournal.forClient("bob", "localhost:7789");
+        journal.startMatch("Reversi", "alice", "alice", "White", 10000);
+        journal.move("alice", "19");
+        journal.turn("Your turn, bob");
+        journal.move("bob", "18");
+        journal.move("alice", "17");
+        journal.turn("Your\tturn\n again");
+        journal.close();
+
+        SessionJournal.Snapshot snapshot = SessionJournal.forClient("bob", "localhost:7789").getResumableMatch();
+
+        assertNotNull(snapshot);
+        assertEquals("Reversi", snapshot.getGameType());
+        assertEquals("alice", snapshot.getPlayerToMove());
+        assertEquals("alice", snapshot.getOpponent());
+        assertEquals("White", snapshot.getSide());
+        assertEquals(10000, snapshot.getTurnTime());
+        assertTrue(snapshot.getStartedAt() <= System.currentTimeMillis());
+        assertEquals(3, snapshot.getMoves().size());
+        assertArrayEquals(new String[]{"alice", "19"}, snapshot.getMoves().get(0));
+        assertArrayEquals(new String[]{"bob", "18"}, snapshot.getMoves().get(1));
+        assertArrayEquals(new String[]{"alice", "17"}, snapshot.getMoves().get(2));
+        assertEquals("Your turn  again", snapshot.getTurnMessage());
+    }
+
+    @Test
+    public void moveAfterTurnClearsTurnMessage() {
+        SessionJournal journal = SessionJournal.forClient("bob", "localhost:7789");
+        journal.startMatch("Tic-tac-toe", "bob", "alice", "X", 10000);
+        journal.turn("Your turn");
+        journal.move("bob", "4");
+        journal.close();
+
+        SessionJournal.Snapshot snapshot = journal.getResumableMatch();
+
+        assertNotNull(snapshot);
+        assertEquals(1, snapshot.getMoves().size());
+        assertNull(snapshot.getTurnMessage());
+    }
+
+    @Test
+    public void newMatchReplacesPreviousSnapshot() {
+        SessionJournal journal = SessionJournal.forClient("bob", "localhost:7789");
+        journal.startMatch("Reversi", "alice", "alice", "White", 10000);
+        journal.move("alice", "19");
+        journal.startMatch("Tic-tac-toe", "bob", "carol", "X", 20000);
+        journal.close();
+
+        SessionJournal.Snapshot snapshot = journal.getResumableMatch();
+
+        assertEquals("Tic-tac-toe", snapshot.getGameType());
+        assertEquals("carol", snapshot.getOpponent());
+        assertEquals(20000, snapshot.getTurnTime());
+        assertTrue(snapshot.getMoves().isEmpty());
+    }
+
+    @Test
+    public void reopenAppendsToResumedMatch() {
+        SessionJournal journal = SessionJournal.forClient("bob", "localhost:7789");
+        journal.startMatch("Reversi", "alice", "alice", "White", 10000);
+        journal.move("alice", "19");
+        journal.close();
+
+        assertNotNull(journal.getResumableMatch());
+        journal.reopen();
+        journal.move("bob", "18");
+        journal.close();
+
+        assertEquals(2, journal.getResumableMatch().getMoves().size());
+    }
+
+    @Test
+    public void snapshotOlderThanTurnTimeIsDiscarded() {
+        SessionJournal journal = SessionJournal.forClient("bob", "localhost:7789");
+        journal.startMatch("Reversi", "alice", "alice", "White", 10000);
+        journal.close();
+        File file = onlyFile();
+        assertTrue(file.setLastModified(System.currentTimeMillis() - 60000));
+
+        assertNull(journal.getResumableMatch());
+        assertFalse(file.exists());
+    }
+
+    @Test
+    public void endedMatchCannotBeResumed() {
+        SessionJournal journal = SessionJournal.forClient("bob", "localhost:7789");
+        journal.startMatch("Reversi", "alice", "alice", "White", 10000);
+        journal.move("alice", "19");
+        assertNull("an open snapshot is not resumable", journal.getResumableMatch());
+        journal.endMatch();
+
+        assertNull(journal.getResumableMatch());
+        assertEquals(0, directory.listFiles().length);
+    }
+
+    @Test
+    public void journalsAreKeptPerClientAndServer() {
+        SessionJournal bob = SessionJournal.forClient("bob", "localhost:7789");
+        bob.startMatch("Reversi", "alice", "alice", "White", 10000);
+        bob.close();
+
+        assertNull(SessionJournal.forClient("bob", "localhost:7790").getResumableMatch());
+        assertNull(SessionJournal.forClient("carol", "localhost:7789").getResumableMatch());
+        assertNotNull(SessionJournal.forClient("bob", "localhost:7789").getResumableMatch());
+    }
+
+    @Test
+    public void nothingIsWrittenWithoutDirectory() {
+        System.clearProperty("framework.sessions");
+        assertNull(SessionJournal.forClient("bob", "localhost:7789"));
+    }
+
+    private File onlyFile() {
+        File[] files = directory.listFiles();
+        assertEquals(1, files.length);
+        return files[0];
+    }
+}
@@ -0,0 +1,109 @@
+package util;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class BitboardTest {
+    private static final int[] ROW_STEP = {-1, -1, 0, 1, 1, 1, 0, -1};
+    private static final int[] COLUMN_STEP = {0, 1, 1, 1, 0, -1, -1, -1};
+
+    @Test
+    public void shiftDropsPiecesAtTheEdges() {
+        int[][] sizes = {{3, 3}, {7, 6}, {8, 8}, {5, 1}, {1, 5}};
+        for (int[] size : sizes) {
+            Bitboard bitboard = new Bitboard(size[0], size[1]);
+            for (int square = 0; square < bitboard.getSquares(); square++) {
+                for (int direction = Bitboard.NORTH; direction <= Bitboard.NORTH_WEST; direction++) {
+                    assertEquals(size[0] + "x" + size[1] + " square " + square + " direction " + direction,
+                            expectedShift(bitboard, square, direction), bitboard.shift(1L << square, direction));
+                }
+            }
+        }
+    }
+
+    @Test
+    public void shiftOfFullBoardStaysOnBoard() {
+        Bitboard bitboard = new Bitboard(8, 8);
+        for (int direction = Bitboard.NORTH; direction <= Bitboard.NORTH_WEST; direction++) {
+            long shifted = bitboard.shift(bitboard.getFull(), direction);
+            assertEquals(direction % 2 == 0 ? 56 : 49, Bitboard.count(shifted));
+        }
+    }
+
+    @Test
+    public void neighboursOfCornerAndCenter() {
+        Bitboard bitboard = new Bitboard(3, 3);
+        assertEquals(3, Bitboard.count(bitboard.getNeighbours(0)));
+        assertEquals(8, Bitboard.count(bitboard.getNeighbours(4)));
+        assertEquals(bitboard.getFull() & ~(1L << 4), bitboard.getNeighbours(4));
+    }
+
+    @Test
+    public void hasLineInAllFourDirections() {
+        Bitboard bitboard = new Bitboard(3, 3);
+        long row = bits(bitboard, 1, 0, 1, 1, 1, 2);
+        long column = bits(bitboard, 0, 2, 1, 2, 2, 2);
+        long diagonal = bits(bitboard, 0, 0, 1, 1, 2, 2);
+        long antiDiagonal = bits(bitboard, 0, 2, 1, 1, 2, 0);
+        for (long line : new long[]{row, column, diagonal, antiDiagonal}) {
+            assertTrue(bitboard.hasLine(line, 3));
+        }
+        assertFalse(bitboard.hasLine(bits(bitboard, 0, 0, 0, 1, 1, 2), 3));
+        assertFalse(bitboard.hasLine(bits(bitboard, 0, 0, 1, 1, 2, 1), 3));
+    }
+
+    @Test
+    public void hasLineDoesNotWrapAroundTheEdges() {
+        Bitboard bitboard = new Bitboard(7, 6);
+        assertFalse(bitboard.hasLine(bits(bitboard, 0, 5, 0, 6, 1, 0, 1, 1), 4));
+        assertFalse(bitboard.hasLine(bits(bitboard, 0, 6, 1, 0, 2, 1, 3, 2), 4));
+        assertTrue(bitboard.hasLine(bits(bitboard, 2, 3, 3, 4, 4, 5, 5, 6), 4));
+        assertTrue(bitboard.hasLine(bits(bitboard, 5, 3, 4, 3, 3, 3, 2, 3), 4));
+        assertFalse(bitboard.hasLine(bits(bitboard, 5, 3, 4, 3, 3, 3), 4));
+    }
+
+    @Test
+    public void reversiOpening() {
+        Bitboard bitboard = new Bitboard(8, 8);
+        long white = bits(bitboard, 3, 3, 4, 4);
+        long black = bits(bitboard, 3, 4, 4, 3);
+        long moves = bitboard.reversiMoves(black, white);
+        assertEquals(bits(bitboard, 2, 3, 3, 2, 4, 5, 5, 4), moves);
+        assertEquals(bits(bitboard, 3, 3), bitboard.reversiFlips(black, white, bitboard.square(2, 3)));
+        assertEquals(0, bitboard.reversiFlips(black, white, bitboard.square(0, 0)));
+    }
+
+    @Test
+    public void iteratesOverSquares() {
+        long board = (1L << 3) | (1L << 17) | (1L << 63);
+        assertEquals(3, Bitboard.count(board));
+        assertEquals(3, Bitboard.firstSquare(board));
+        assertEquals(17, Bitboard.firstSquare(Bitboard.withoutFirst(board)));
+        assertEquals(63, Bitboard.firstSquare(Bitboard.withoutFirst(Bitboard.withoutFirst(board))));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void refusesBoardsLargerThanALong() {
+        new Bitboard(9, 8);
+    }
+
+    private static long expectedShift(Bitboard bitboard, int square, int direction) {
+        int row = square / bitboard.getWidth() + ROW_STEP[direction];
+        int column = square % bitboard.getWidth() + COLUMN_STEP[direction];
+        if (row < 0 || row >= bitboard.getHeight() || column < 0 || column >= bitboard.getWidth()) {
+            return 0;
+        }
+        return 1L << bitboard.square(row, column);
+    }
+
+    private static long bits(Bitboard bitboard, int... rowsAndColumns) {
+        long board = 0;
+        for (int i = 0; i < rowsAndColumns.length; i += 2) {
+            board |= 1L << bitboard.square(rowsAndColumns[i], rowsAndColumns[i + 1]);
+        }
+        return board;
+    }
+}
@@ -0,0 +1,58 @@
+package util;
+
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+
+public class ZobristTest {
+    private static final int BLACK = 0;
+    private static final int WHITE = 1;
+
+    @Test
+    public void incrementalHashEqualsFullHash() {
+        Bitboard bitboard = new Bitboard(8, 8);
+        Zobrist zobrist = new Zobrist(2, bitboard.getSquares());
+        Random random = new Random(42);
+        long[] pieces = {(1L << 28) | (1L << 35), (1L << 27) | (1L << 36)};
+        long hash = zobrist.hash(pieces);
+        int player = BLACK;
+
+        for (int turn = 0; turn < 60; turn++) {
+            long moves = bitboard.reversiMoves(pieces[player], pieces[1 - player]);
+            if (moves != 0) {
+                for (int skip = random.nextInt(Bitboard.count(moves)); skip > 0; skip--) {
+                    moves = Bitboard.withoutFirst(moves);
+                }
+                int square = Bitboard.firstSquare(moves);
+                long flips = bitboard.reversiFlips(pieces[player], pieces[1 - player], square);
+                pieces[player] |= flips | 1L << square;
+                pieces[1 - player] &= ~flips;
+                hash = zobrist.toggle(hash, player, square);
+                hash = zobrist.toggleAll(hash, player, flips);
+                hash = zobrist.toggleAll(hash, 1 - player, flips);
+            }
+            player = 1 - player;
+            hash = zobrist.switchSide(hash);
+            long expected = zobrist.hash(pieces);
+            assertEquals("turn " + turn, player == BLACK ? expected : zobrist.switchSide(expected), hash);
+        }
+    }
+
+    @Test
+    public void keysAreTheSameInEveryRun() {
+        assertEquals(new Zobrist(2, 64).hash(1L << 10, 1L << 20), new Zobrist(2, 64).hash(1L << 10, 1L << 20));
+        assertNotEquals(new Zobrist(2, 64, 1).hash(1L << 10), new Zobrist(2, 64, 2).hash(1L << 10));
+    }
+
+    @Test
+    public void togglingTwiceRestoresTheHash() {
+        Zobrist zobrist = new Zobrist(2, 9);
+        long hash = zobrist.hash(0b101, 0b010);
+        assertEquals(hash, zobrist.toggle(zobrist.toggle(hash, WHITE, 4), WHITE, 4));
+        assertEquals(hash, zobrist.switchSide(zobrist.switchSide(hash)));
+        assertNotEquals(zobrist.hash(1L << 4, 0), zobrist.hash(0, 1L << 4));
+    }
+}
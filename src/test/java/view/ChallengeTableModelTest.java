@@ -0,0 +1,110 @@
+package view;
+
+import model.Challenge;
+import org.junit.Before;
+import org.junit.Test;
+
+import javax.swing.event.TableModelEvent;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+public class ChallengeTableModelTest {
+    private ChallengeTableModel tableModel;
+    private List<TableModelEvent> events;
+
+    @Before
+    public void setUp() {
+        tableModel = new ChallengeTableModel("Accept", "Reject");
+        events = new ArrayList<>();
+        tableModel.addTableModelListener(events::add);
+    }
+
+    @Test
+    public void removeMovesLastRowIntoTheGap() {
+        Challenge first = challenge("1");
+        Challenge second = challenge("2");
+        Challenge third = challenge("3");
+        tableModel.add(first);
+        tableModel.add(second);
+        tableModel.add(third);
+        events.clear();
+
+        tableModel.remove("1");
+
+        assertEquals(2, tableModel.getRowCount());
+        assertSame(third, tableModel.getChallengeAt(0));
+        assertSame(second, tableModel.getChallengeAt(1));
+        assertSame(third, tableModel.get("3"));
+        assertNull(tableModel.get("1"));
+        assertEvent(events.get(0), TableModelEvent.DELETE, 2);
+        assertEvent(events.get(1), TableModelEvent.UPDATE, 0);
+
+        tableModel.remove("2");
+        tableModel.remove("3");
+        assertEquals(0, tableModel.getRowCount());
+        assertNull(tableModel.get("3"));
+    }
+
+    @Test
+    public void removeLastRowFiresOnlyDelete() {
+        tableModel.add(challenge("1"));
+        tableModel.add(challenge("2"));
+        events.clear();
+
+        tableModel.remove("2");
+
+        assertEquals(1, events.size());
+        assertEvent(events.get(0), TableModelEvent.DELETE, 1);
+        assertEquals("1", tableModel.getValueAt(0, 0));
+    }
+
+    @Test
+    public void addReplacesChallengeWithSameNumber() {
+        tableModel.add(challenge("1"));
+        tableModel.add(challenge("2"));
+        events.clear();
+
+        Challenge replacement = new Challenge("1", "Tic-tac-toe", "alice", "20", 0);
+        tableModel.add(replacement);
+
+        assertEquals(2, tableModel.getRowCount());
+        assertSame(replacement, tableModel.get("1"));
+        assertEquals("Tic-tac-toe", tableModel.getValueAt(0, 1));
+        assertEvent(events.get(0), TableModelEvent.UPDATE, 0);
+    }
+
+    @Test
+    public void indexStaysConsistentAfterManyRemovals() {
+        for (int i = 0; i < 50; i++) {
+            tableModel.add(challenge(Integer.toString(i)));
+        }
+        for (int i = 0; i < 50; i += 3) {
+            tableModel.remove(Integer.toString(i));
+        }
+        tableModel.remove("unknown");
+
+        for (int row = 0; row < tableModel.getRowCount(); row++) {
+            Challenge challenge = tableModel.getChallengeAt(row);
+            assertSame(challenge, tableModel.get(challenge.getNumber()));
+        }
+        assertEquals(33, tableModel.getRowCount());
+
+        tableModel.clear();
+        assertEquals(0, tableModel.getRowCount());
+        assertNull(tableModel.get("1"));
+    }
+
+    private static Challenge challenge(String number) {
+        return new Challenge(number, "Reversi", "player" + number, "10", 0);
+    }
+
+    private static void assertEvent(TableModelEvent event, int type, int row) {
+        assertEquals(type, event.getType());
+        assertEquals(row, event.getFirstRow());
+        assertEquals(row, event.getLastRow());
+    }
+}